@@ -0,0 +1,121 @@
+package excel.accounting.db;
+
+import excel.accounting.entity.ExpenseItem;
+import excel.accounting.entity.PaidStatus;
+import excel.accounting.entity.Status;
+import excel.accounting.shared.EntitySequence;
+import org.apache.commons.beanutils.BeanUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row Mapper Benchmark, expense item rows are read once from an in memory database, then turned into entities by
+ * the compiled SqlRowMapper and by the per cell BeanUtils.copyProperty path toEntityList took before it
+ * Built by the bench profile, run org.openjdk.jmh.Main with target/bench-classes, target/classes and the
+ * dependencies on the path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    @Param({"1000", "100000"})
+    private int rowCount;
+    private SqlTable table;
+    private SqlMetaData[] metaData;
+    private List<Object[]> rowList;
+    private String[] fieldNames;
+    private SqlEnumCodec[] enumCodecs;
+
+    @Setup
+    public void setup() throws Exception {
+        SqlProcessor processor = SqlFactory.createH2Processor("jdbc:h2:mem:mapper" + rowCount, "sa", "", null,
+                "excel", new String[]{"excel.accounting.entity"}, new SqlEnumParser() {
+                    @Override
+                    public <E> Object parseEnum(Class<?> typeClass, String value) {
+                        return null;
+                    }
+                });
+        try {
+            processor.migrateSchema();
+            processor.getSqlTransaction().insertBulk(createItems(), 1000, null);
+            SqlReader reader = processor.getSqlReader();
+            SqlMetaDataResult dataResult = reader.sqlMetaDataResult(reader.selectBuilder(ExpenseItem.class)
+                    .getSqlQuery());
+            metaData = dataResult.getMetaData();
+            rowList = dataResult.getObjectsList();
+            table = SqlFactory.getValidOrmTable(processor.getSqlTableMap(), metaData);
+        } finally {
+            processor.close();
+        }
+        fieldNames = new String[metaData.length];
+        enumCodecs = new SqlEnumCodec[metaData.length];
+        for (int index = 0; index < metaData.length; index++) {
+            final int ordinal = table.ordinalOf(metaData[index].getColumnName());
+            if (0 <= ordinal && table.getField(ordinal) != null) {
+                fieldNames[index] = table.getField(ordinal).getName();
+                enumCodecs[index] = table.getEnumCodec(ordinal);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Object> rowMapper() {
+        SqlRowMapper rowMapper = table.getRowMapper();
+        int[] binding = rowMapper.bind(metaData);
+        List<Object> entityList = new ArrayList<>(rowList.size());
+        for (Object[] data : rowList) {
+            entityList.add(rowMapper.map(binding, data));
+        }
+        return entityList;
+    }
+
+    /**
+     * Field name and enum decoding looked up per cell, every value copied by BeanUtils
+     */
+    @Benchmark
+    public List<Object> beanUtils() throws Exception {
+        List<Object> entityList = new ArrayList<>(rowList.size());
+        for (Object[] data : rowList) {
+            Object entity = table.getType().getDeclaredConstructor().newInstance();
+            for (int index = 0; index < data.length; index++) {
+                final String fieldName = fieldNames[index];
+                if (fieldName == null) {
+                    continue;
+                }
+                Object value = enumCodecs[index] == null ? data[index] : enumCodecs[index].decode(data[index]);
+                try {
+                    BeanUtils.copyProperty(entity, fieldName, value);
+                } catch (Exception ex) {
+                    // ignore
+                }
+            }
+            entityList.add(entity);
+        }
+        return entityList;
+    }
+
+    private List<ExpenseItem> createItems() {
+        List<ExpenseItem> itemList = new ArrayList<>(rowCount);
+        Calendar calendar = Calendar.getInstance();
+        for (int index = 0; index < rowCount; index++) {
+            ExpenseItem item = new ExpenseItem();
+            item.setCode(EntitySequence.getExpenseItemCode(index + 1));
+            item.setStatus(Status.Drafted);
+            item.setExpenseDate(calendar.getTime());
+            item.setGroupCode("expense " + index % 100);
+            item.setExpenseCategory("category " + index % 10);
+            item.setPaidAmount(new BigDecimal(index).movePointLeft(2));
+            item.setPaidStatus(PaidStatus.Unpaid);
+            itemList.add(item);
+        }
+        return itemList;
+    }
+}
@@ -0,0 +1,102 @@
+package excel.accounting.shared;
+
+import excel.accounting.db.*;
+import excel.accounting.entity.ExpenseItem;
+import excel.accounting.entity.Status;
+import org.h2.tools.DeleteDbFiles;
+import org.h2.tools.Server;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Database Mode Benchmark, the standard workload on a fresh file database in each SqlDatabaseMode:
+ * batch insert of expense items, point lookups by code, single row update commits and a full entity load.
+ * The first argument is the database directory, the temp directory by default. Each mode runs a few rounds on a
+ * new database and the last round is printed, the rounds before it warm up the jvm
+ * Built by the bench profile into target/bench-classes, run it with target/classes and the dependencies on the path
+ */
+public class DatabaseModeBenchmark {
+    private static final int insertCount = 5000, lookupCount = 2000, updateCount = 500, batchSize = 500;
+    private static final int roundCount = 3;
+
+    public static void main(String... args) throws Exception {
+        Path directory = Paths.get(args.length == 0 ? System.getProperty("java.io.tmpdir") : args[0],
+                "excel-accounting-benchmark").toAbsolutePath();
+        Files.createDirectories(directory);
+        Server server = Server.createTcpServer("-tcpPort", "0").start();
+        try {
+            for (SqlDatabaseMode mode : SqlDatabaseMode.values()) {
+                String result = null;
+                for (int round = 0; round < roundCount; round++) {
+                    result = run(mode, directory, server.getPort());
+                }
+                System.out.println(String.format("%-10s  %s", mode, result));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String run(SqlDatabaseMode mode, Path directory, int port) throws Exception {
+        final String name = mode.name().toLowerCase();
+        DeleteDbFiles.execute(directory.toString(), name, true);
+        SqlDatabaseConfig database = new SqlDatabaseConfig();
+        database.setMode(mode);
+        database.setHost("localhost:" + port);
+        database.setPath(directory.resolve(name).toString().replace('\\', '/'));
+        SqlProcessor processor = SqlFactory.createH2Processor(database.getUrl(), "sa", "", null, "excel",
+                new String[]{"excel.accounting.entity"}, new SqlEnumParserImpl());
+        try {
+            processor.migrateSchema();
+            SqlTransaction transaction = processor.getSqlTransaction();
+            SqlReader reader = processor.getSqlReader();
+            List<ExpenseItem> itemList = createItems();
+            long start = System.nanoTime();
+            transaction.insertBulk(itemList, batchSize, null);
+            final long insertNanos = System.nanoTime() - start;
+            Random random = new Random(1);
+            start = System.nanoTime();
+            for (int index = 0; index < lookupCount; index++) {
+                QueryBuilder builder = reader.selectBuilder(ExpenseItem.class);
+                builder.where("code", itemList.get(random.nextInt(insertCount)).getCode());
+                reader.entityList(builder.getSqlQuery());
+            }
+            final long lookupNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int index = 0; index < updateCount; index++) {
+                ExpenseItem item = itemList.get(index);
+                item.setGroupCode("updated " + index);
+                transaction.update(Collections.singletonList(item));
+            }
+            final long updateNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            List<ExpenseItem> loadList = reader.entityList(reader.selectBuilder(ExpenseItem.class).getSqlQuery());
+            final long loadNanos = System.nanoTime() - start;
+            if (loadList.size() != insertCount) {
+                throw new IllegalStateException(mode + " loaded " + loadList.size() + " of " + insertCount);
+            }
+            return String.format("insert %5dms  lookup %4dus/op  update %4dus/op  load %4dms", insertNanos / 1000000,
+                    lookupNanos / 1000 / lookupCount, updateNanos / 1000 / updateCount, loadNanos / 1000000);
+        } finally {
+            processor.close();
+            DeleteDbFiles.execute(directory.toString(), name, true);
+        }
+    }
+
+    private static List<ExpenseItem> createItems() {
+        List<ExpenseItem> itemList = new ArrayList<>(insertCount);
+        Calendar calendar = Calendar.getInstance();
+        for (int index = 0; index < insertCount; index++) {
+            ExpenseItem item = new ExpenseItem();
+            item.setCode(EntitySequence.getExpenseItemCode(index + 1));
+            item.setStatus(Status.Drafted);
+            item.setExpenseDate(calendar.getTime());
+            item.setGroupCode("expense " + index % 100);
+            itemList.add(item);
+        }
+        return itemList;
+    }
+}
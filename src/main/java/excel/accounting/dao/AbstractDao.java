@@ -1,13 +1,21 @@
 package excel.accounting.dao;
 
 import excel.accounting.db.QueryBuilder;
-import excel.accounting.db.SqlFactory;
-import excel.accounting.db.SqlMetaDataResult;
+import excel.accounting.db.SqlPager;
+import excel.accounting.db.SqlProjection;
+import excel.accounting.db.SqlRow;
+import excel.accounting.db.SqlRowHandler;
+import excel.accounting.db.SqlUnitOfWork;
+import excel.accounting.entity.BaseRecord;
 import excel.accounting.shared.AbstractControl;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Table Relation
@@ -29,30 +37,184 @@ public abstract class AbstractDao<T> extends AbstractControl {
         return fetchList(builder);
     }
 
+    /**
+     * Full table for export, read off the fx thread by the report async reader, bypassing the result cache
+     */
+    public CompletableFuture<List<T>> exportAllAsync(Class<?> entityClass) {
+        QueryBuilder builder = getReportReader().selectBuilder(entityClass);
+        CompletableFuture<List<T>> future = getReportAsyncReader().entityList("export." + getTableName(),
+                builder.getSqlQuery());
+        future.whenComplete((dataList, ex) -> {
+            if (ex != null && !(ex instanceof CancellationException)) {
+                ex.printStackTrace();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Grid rows of the given fields only, open a row for editing with loadEntities
+     *
+     * @param key pending load of the same key is superseded
+     */
+    public CompletableFuture<List<SqlRow>> loadRowsAsync(String key, Class<?> entityClass, String... fieldNames) {
+        SqlProjection projection = getSqlReader().projection(entityClass, fieldNames);
+        CompletableFuture<List<SqlRow>> future = getSqlAsyncReader().rowList(key, projection,
+                getSqlReader().selectBuilder(projection).getSqlQuery());
+        future.whenComplete((rowList, ex) -> {
+            if (ex != null && !(ex instanceof CancellationException)) {
+                ex.printStackTrace();
+            }
+        });
+        return future;
+    }
+
+    public List<SqlRow> loadRows(Class<?> entityClass, String... fieldNames) {
+        SqlProjection projection = getSqlReader().projection(entityClass, fieldNames);
+        try {
+            return getSqlReader().rowList(projection, getSqlReader().selectBuilder(projection).getSqlQuery());
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Full entities of the rows by code, in row order, rows deleted since they were read are left out
+     */
+    public List<T> loadEntities(Class<?> entityClass, List<SqlRow> rowList) {
+        Map<Object, T> entityMap = new HashMap<>();
+        for (int fromIndex = 0; fromIndex < rowList.size(); fromIndex += getCodeChunkSize()) {
+            List<Object> codeList = new ArrayList<>();
+            for (SqlRow row : rowList.subList(fromIndex, Math.min(fromIndex + getCodeChunkSize(), rowList.size()))) {
+                codeList.add(row.getPrimaryKey());
+            }
+            QueryBuilder builder = getSqlReader().selectBuilder(entityClass).whereAndIn("code", codeList);
+            for (T entity : fetchList(builder)) {
+                entityMap.put(((BaseRecord) entity).getCode(), entity);
+            }
+        }
+        List<T> entityList = new ArrayList<>(rowList.size());
+        for (SqlRow row : rowList) {
+            T entity = entityMap.get(row.getPrimaryKey());
+            if (entity != null) {
+                entityList.add(entity);
+            }
+        }
+        return entityList;
+    }
+
     protected List<T> fetchList(QueryBuilder queryBuilder) {
         try {
-            SqlMetaDataResult dataResult = getSqlReader().sqlMetaDataResult(queryBuilder.getSqlQuery());
-            return SqlFactory.toEntityList(getSqlProcessor(), dataResult);
+            return getSqlReader().entityList(queryBuilder.getSqlQuery());
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
         return new ArrayList<T>();
     }
 
+    /**
+     * @param key pending load of the same key is superseded
+     */
+    public CompletableFuture<List<T>> loadAllAsync(String key, Class<?> entityClass) {
+        return fetchListAsync(key, getSqlReader().selectBuilder(entityClass));
+    }
+
+    protected CompletableFuture<List<T>> fetchListAsync(String key, QueryBuilder queryBuilder) {
+        CompletableFuture<List<T>> future = getSqlAsyncReader().entityList(key, queryBuilder.getSqlQuery());
+        future.whenComplete((dataList, ex) -> {
+            if (ex != null && !(ex instanceof CancellationException)) {
+                ex.printStackTrace();
+            }
+        });
+        return future;
+    }
+
+    public long forEach(Class<?> entityClass, SqlRowHandler<T> handler) {
+        return forEach(getSqlReader().selectBuilder(entityClass), handler);
+    }
+
+    protected long forEach(QueryBuilder queryBuilder, SqlRowHandler<T> handler) {
+        try {
+            return getSqlReader().forEachEntity(queryBuilder.getSqlQuery(), getFetchSize(), handler);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return 0;
+    }
+
+    protected int getFetchSize() {
+        return 256;
+    }
+
+    protected int getCodeChunkSize() {
+        return 1000;
+    }
+
+    /**
+     * Keyset pages ordered by the key columns, the primary column when none given
+     */
+    public SqlPager<T> pager(Class<?> entityClass, int pageSize, String... keyColumns) {
+        return getSqlReader().pager(entityClass, pageSize, keyColumns);
+    }
+
+    /**
+     * Page through the whole table, handler returns false to stop
+     */
+    public long forEachPage(Class<?> entityClass, int pageSize, SqlRowHandler<List<T>> handler) {
+        SqlPager<T> pager = pager(entityClass, pageSize);
+        long rowCount = 0;
+        try {
+            while (pager.hasNext()) {
+                List<T> pageList = pager.next();
+                rowCount += pageList.size();
+                if (pageList.isEmpty() || !handler.onSqlRow(pageList)) {
+                    break;
+                }
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return rowCount;
+    }
+
+    public long count(Class<?> entityClass) {
+        try {
+            return pager(entityClass, 1).count();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Read through the identity map of the unit of work when the thread has one open
+     */
+    @SuppressWarnings("unchecked")
     protected T findByCode(Class<?> entityClass, String code) {
+        SqlUnitOfWork unitOfWork = getSqlProcessor().getUnitOfWork();
+        if (unitOfWork != null) {
+            try {
+                return (T) unitOfWork.find(entityClass, code);
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            return null;
+        }
         QueryBuilder builder = getSqlReader().selectBuilder(entityClass);
-        builder.where("code", code).limitOffset(1, 1);
+        builder.where("code", code).limit(1);
         List<T> dList = fetchList(builder);
         return dList.isEmpty() ? null : dList.get(0);
     }
 
     public List<String> loadCodeList() {
-        QueryBuilder queryBuilder = getSqlProcessor().createQueryBuilder().selectColumns("code");
+        QueryBuilder queryBuilder = getSqlProcessor().createQueryBuilder().selectColumns("code")
+                .selectFrom(getTableName());
         try {
             return getSqlReader().textList(queryBuilder.getSqlQuery());
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
-        return null;
+        return new ArrayList<>();
     }
 }
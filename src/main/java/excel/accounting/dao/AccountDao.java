@@ -6,6 +6,7 @@ import excel.accounting.entity.AccountType;
 import excel.accounting.entity.Status;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Account Dao
@@ -21,6 +22,15 @@ public class AccountDao extends AbstractDao<Account> {
     }
 
     public List<Account> searchAccount(String searchText, Status status, AccountType... accountTypes) {
+        return fetchList(searchQuery(searchText, status, accountTypes));
+    }
+
+    public CompletableFuture<List<Account>> searchAccountAsync(String key, String searchText, Status status,
+                                                               AccountType... accountTypes) {
+        return fetchListAsync(key, searchQuery(searchText, status, accountTypes));
+    }
+
+    private QueryBuilder searchQuery(String searchText, Status status, AccountType... accountTypes) {
         QueryBuilder queryBuilder = selectBuilder(Account.class);
         if (status != null) {
             queryBuilder.where("status", status);
@@ -33,6 +43,6 @@ public class AccountDao extends AbstractDao<Account> {
             searchTextQuery.add("code", "name");
             queryBuilder.where(searchTextQuery);
         }
-        return fetchList(queryBuilder);
+        return queryBuilder;
     }
 }
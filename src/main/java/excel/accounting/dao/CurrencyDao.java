@@ -5,6 +5,7 @@ import excel.accounting.entity.Currency;
 import excel.accounting.entity.Status;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Currency Dao
@@ -16,6 +17,14 @@ public class CurrencyDao extends AbstractDao<Currency> {
     }
 
     public List<Currency> searchCurrency(String searchText, Status status) {
+        return fetchList(searchQuery(searchText, status));
+    }
+
+    public CompletableFuture<List<Currency>> searchCurrencyAsync(String key, String searchText, Status status) {
+        return fetchListAsync(key, searchQuery(searchText, status));
+    }
+
+    private QueryBuilder searchQuery(String searchText, Status status) {
         QueryBuilder queryBuilder = selectBuilder(Currency.class).orderBy("code");
         if(status != null) {
             queryBuilder.where("status", status);
@@ -25,6 +34,6 @@ public class CurrencyDao extends AbstractDao<Currency> {
             searchQuery.add("code", "name");
             queryBuilder.where(searchQuery);
         }
-        return fetchList(queryBuilder);
+        return queryBuilder;
     }
 }
@@ -0,0 +1,15 @@
+package excel.accounting.db;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Query results of the entity table are kept in the result cache, meant for small master data tables
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface CachedTable {
+}
@@ -0,0 +1,17 @@
+package excel.accounting.db;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Storage of an enum column, without it the constant name is stored
+ */
+@Target(FIELD)
+@Retention(RUNTIME)
+public @interface EnumColumn {
+
+    SqlEnumStorage storage() default SqlEnumStorage.Name;
+}
@@ -0,0 +1,206 @@
+package excel.accounting.db;
+
+import org.apache.log4j.Logger;
+import org.h2.api.ErrorCode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * H2 Bulk Loader
+ * Rows are staged to a temporary csv file, read by csvread into a local temporary table visible to the loading
+ * session only, then copied by one insert direct sorted select that the foreign keys of the table check once.
+ * The constraints stay enforced, switching them off in h2 is a database wide setting that would also skip the
+ * checks of other sessions. Reading and the insert run in one transaction and a violation rolls the whole load
+ * back, the staged rows are then checked set based against each parent table to report what is missing. The csv file is read
+ * by the database server, so it must run on the same machine as the application (embedded or localhost tcp)
+ */
+class H2BulkLoader {
+    private static final Logger logger = Logger.getLogger(H2BulkLoader.class);
+    private final H2Processor processor;
+
+    H2BulkLoader(H2Processor processor) {
+        this.processor = processor;
+    }
+
+    SqlBulkLoadResult load(List<?> objects) throws SQLException {
+        final long startTime = System.nanoTime();
+        final SqlTable table = getTable(objects);
+        final String tableName = processor.getSchema() + "." + table.getName();
+        Path csvFile = null;
+        try {
+            csvFile = Files.createTempFile("bulk-" + table.getName() + "-", ".csv");
+            writeCsv(csvFile, table, sortedRows(table, objects));
+            final long loadTime = System.nanoTime();
+            loadCsv(csvFile, table, tableName);
+            SqlBulkLoadResult result = new SqlBulkLoadResult(table.getName(), objects.size(),
+                    loadTime - startTime, System.nanoTime() - loadTime);
+            logger.info("Bulk load " + result);
+            return result;
+        } catch (IOException ex) {
+            throw new SQLException("Bulk load staging failed for " + tableName, ex);
+        } finally {
+            deleteFile(csvFile);
+        }
+    }
+
+    private void loadCsv(Path csvFile, SqlTable table, String tableName) throws SQLException {
+        final String stageName = "bulk_" + table.getName();
+        SqlConnectionPool connectionPool = processor.getConnectionPool();
+        SqlConnection connection = connectionPool.acquire();
+        try {
+            executeUpdate(connection, "create local temporary table " + stageName + " as select "
+                    + String.join(",", table.getColumnNames()) + " from " + tableName + " where false;");
+            connection.setAutoCommit(false);
+            executeUpdate(connection, "insert into " + stageName + " select * from csvread("
+                    + quote(csvFile.toAbsolutePath().toString()) + ", null, 'charset=UTF-8');");
+            try {
+                executeUpdate(connection, "insert into " + tableName + " (" + String.join(",",
+                        table.getColumnNames()) + ") direct sorted select * from " + stageName + ";");
+            } catch (SQLException ex) {
+                if (ex.getErrorCode() == ErrorCode.REFERENTIAL_INTEGRITY_VIOLATED_PARENT_MISSING_1) {
+                    reportReferences(connection, table, stageName, ex);
+                }
+                throw ex;
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            dropStage(connection, stageName);
+            connectionPool.release(connection);
+        }
+    }
+
+    private void dropStage(SqlConnection connection, String stageName) {
+        try {
+            executeUpdate(connection, "drop table if exists " + stageName + ";");
+        } catch (SQLException ex) {
+            logger.warn("Bulk load stage table not dropped " + stageName, ex);
+        }
+    }
+
+    /**
+     * One anti join per foreign key column, counts the staged rows missing from their parent tables once the
+     * insert failed on a foreign key
+     */
+    private void reportReferences(SqlConnection connection, SqlTable table, String stageName, SQLException cause)
+            throws SQLException {
+        List<String> violationList = new ArrayList<>();
+        for (SqlColumn column : table) {
+            SqlTable joinTable = column.getJoinTable();
+            if (joinTable == null) {
+                continue;
+            }
+            String joinName = processor.getSchema() + "." + joinTable.getName();
+            String joinKey = joinTable.getPrimaryColumn().getName();
+            Statement statement = connection.getConnection().createStatement();
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from " + stageName
+                    + " c left join " + joinName + " p on c." + column.getName() + " = p." + joinKey
+                    + " where c." + column.getName() + " is not null and p." + joinKey + " is null;")) {
+                long count = resultSet.next() ? resultSet.getLong(1) : 0;
+                if (0 < count) {
+                    violationList.add(count + " " + column.getName() + " not found in " + joinTable.getName());
+                }
+            } finally {
+                statement.close();
+            }
+        }
+        if (!violationList.isEmpty()) {
+            throw new SQLException("Bulk load of " + table.getName() + " rolled back, " + violationList, cause);
+        }
+    }
+
+    /**
+     * Plain statement, csvread needs its file name as a literal and the sql is not worth caching
+     */
+    private void executeUpdate(SqlConnection connection, String sql) throws SQLException {
+        Statement statement = connection.getConnection().createStatement();
+        try {
+            statement.executeUpdate(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static String quote(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+    private void writeCsv(Path csvFile, SqlTable table, List<?> rows) throws IOException {
+        final SqlWritePlan writePlan = table.getWritePlan();
+        final int columnCount = table.size();
+        BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8);
+        try {
+            writer.write(String.join(",", table.getColumnNames()));
+            writer.newLine();
+            for (Object row : rows) {
+                for (int ordinal = 0; ordinal < columnCount; ordinal++) {
+                    if (0 < ordinal) {
+                        writer.write(',');
+                    }
+                    String text = writePlan.getText(ordinal, row);
+                    if (text != null) {
+                        writer.write('"');
+                        writer.write(text.replace("\"", "\"\""));
+                        writer.write('"');
+                    }
+                }
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Primary key order lets insert sorted append to the end of the index pages
+     */
+    @SuppressWarnings("unchecked")
+    private List<?> sortedRows(SqlTable table, List<?> objects) {
+        final SqlWritePlan writePlan = table.getWritePlan();
+        final int primaryOrdinal = writePlan.getPrimaryOrdinal();
+        if (primaryOrdinal < 0) {
+            return objects;
+        }
+        List<Object> sortedList = new ArrayList<>(objects);
+        sortedList.sort(Comparator.comparing(row -> (Comparable<Object>) writePlan.getValue(primaryOrdinal, row),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return sortedList;
+    }
+
+    private SqlTable getTable(List<?> objects) {
+        Class<?> entityClass = objects.get(0).getClass();
+        for (Object object : objects) {
+            if (!entityClass.equals(object.getClass())) {
+                throw new IllegalArgumentException("Bulk load rows must be of one entity, found "
+                        + entityClass.getSimpleName() + " and " + object.getClass().getSimpleName());
+            }
+        }
+        SqlTable table = processor.getSqlTable(entityClass);
+        if (table == null) {
+            throw new IllegalArgumentException(entityClass + " is not an entity table");
+        }
+        return table;
+    }
+
+    private void deleteFile(Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                logger.warn("Bulk load file not deleted " + path);
+            }
+        }
+    }
+}
@@ -1,39 +1,62 @@
 package excel.accounting.db;
 
-import org.h2.jdbcx.JdbcConnectionPool;
 import org.h2.tools.Server;
 
 import javax.persistence.TemporalType;
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.sql.SQLException;
+import java.util.*;
 
 /**
  * H2 Processor
  */
 public class H2Processor implements SqlProcessor {
-    private JdbcConnectionPool connectionPool;
+    private SqlConnectionPool connectionPool, reportPool;
     private SqlTableMap tableMap;
     private SqlEnumParser enumParser;
-    private H2Reader reader;
+    private H2Reader reader, reportReader;
     private H2Transaction transaction;
+    private SqlAsyncReader asyncReader, reportAsyncReader;
+    private SqlResultCache resultCache;
+    private final ThreadLocal<SqlUnitOfWork> unitOfWork = new ThreadLocal<>();
 
     public static void main(String... args) throws Exception {
         Server.createTcpServer().start();
         Server.createWebServer().start();
     }
 
-    void setConnectionPool(JdbcConnectionPool connectionPool) {
+    void setConnectionPool(SqlConnectionPool connectionPool) {
         this.connectionPool = connectionPool;
-        reader = new H2Reader(this);
+        reader = new H2Reader(this, connectionPool, false);
+        reportReader = new H2Reader(this, connectionPool, true);
         transaction = new H2Transaction(this);
     }
 
-    JdbcConnectionPool getConnectionPool() {
+    SqlConnectionPool getConnectionPool() {
         return connectionPool;
     }
 
+    void setReportPool(SqlConnectionPool reportPool) {
+        this.reportPool = reportPool;
+        reportReader = new H2Reader(this, reportPool, true);
+    }
+
+    void setAsyncReader(SqlAsyncReader asyncReader) {
+        this.asyncReader = asyncReader;
+    }
+
+    void setReportAsyncReader(SqlAsyncReader reportAsyncReader) {
+        this.reportAsyncReader = reportAsyncReader;
+    }
+
+    void setResultCache(SqlResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    SqlResultCache getResultCache() {
+        return resultCache;
+    }
+
     void setTableMap(SqlTableMap tableMap) {
         this.tableMap = tableMap;
     }
@@ -66,9 +89,56 @@ public class H2Processor implements SqlProcessor {
         return reader;
     }
 
+    @Override
+    public SqlAsyncReader getSqlAsyncReader() {
+        return asyncReader;
+    }
+
+    @Override
+    public SqlReader getReportReader() {
+        return reportReader;
+    }
+
+    @Override
+    public SqlAsyncReader getReportAsyncReader() {
+        return reportAsyncReader;
+    }
+
+    @Override
+    public SqlUnitOfWork openUnitOfWork() throws SQLException {
+        SqlUnitOfWork current = unitOfWork.get();
+        if (current != null) {
+            current.join();
+            return current;
+        }
+        SqlConnection connection = connectionPool.acquire();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException ex) {
+            connectionPool.release(connection);
+            throw ex;
+        }
+        current = new SqlUnitOfWork(this, connection);
+        unitOfWork.set(current);
+        return current;
+    }
+
+    @Override
+    public SqlUnitOfWork getUnitOfWork() {
+        return unitOfWork.get();
+    }
+
+    void closeUnitOfWork(SqlUnitOfWork current, SqlConnection connection) {
+        if (unitOfWork.get() == current) {
+            unitOfWork.remove();
+        }
+        connectionPool.release(connection);
+    }
+
     @Override
     public List<SqlReference> getSqlReference(Class<?> entityClass) {
-        return null;
+        SqlTable table = getSqlTable(entityClass);
+        return table == null ? null : table.getReferenceList();
     }
 
     @Override
@@ -83,9 +153,16 @@ public class H2Processor implements SqlProcessor {
         List<SqlQuery> queryList = new ArrayList<>();
         for (SqlTable table : getSqlTableMap().values()) {
             SqlQuery sqlQuery = new SqlQuery();
-            sqlQuery.setQuery(createTableQuery(table.getName(), table));
+            sqlQuery.setQuery(createTableQuery(table));
             queryList.add(sqlQuery);
         }
+        for (SqlTable table : getSqlTableMap().values()) {
+            for (SqlIndex index : table.getIndexList()) {
+                SqlQuery sqlQuery = new SqlQuery();
+                sqlQuery.setQuery(createIndexQuery(table, index));
+                queryList.add(sqlQuery);
+            }
+        }
         return queryList;
     }
 
@@ -103,6 +180,62 @@ public class H2Processor implements SqlProcessor {
         return queryList;
     }
 
+    @Override
+    public int migrateSchema() throws SQLException {
+        return new H2SchemaMigration(this).migrate();
+    }
+
+    @Override
+    public List<String> findTableScans() throws SQLException {
+        List<String> scanList = new ArrayList<>();
+        for (SqlTable table : getSqlTableMap().values()) {
+            for (List<SqlColumn> columnList : getProbeColumns(table)) {
+                H2QueryBuilder builder = reader.selectBuilder(table.getType());
+                for (SqlColumn column : columnList) {
+                    builder.where(column.getName(), getProbeValue(column));
+                }
+                SqlQuery query = builder.getSqlQuery();
+                String plan = reader.explain(query);
+                if (plan != null && plan.contains(".tableScan")) {
+                    scanList.add(query.toString());
+                }
+            }
+        }
+        return scanList;
+    }
+
+    /**
+     * Filters the views and lookups depend on, every secondary index and every foreign key column
+     */
+    private Set<List<SqlColumn>> getProbeColumns(SqlTable table) {
+        Set<List<SqlColumn>> probeSet = new LinkedHashSet<>();
+        for (SqlIndex index : table.getIndexList()) {
+            probeSet.add(index.getColumnList());
+        }
+        for (SqlColumn column : table) {
+            if (column.getJoinTable() != null) {
+                probeSet.add(Collections.singletonList(column));
+            }
+        }
+        return probeSet;
+    }
+
+    private Object getProbeValue(SqlColumn column) {
+        final Class<?> type = column.getType();
+        if (Date.class.equals(type)) {
+            return new Date();
+        } else if (BigDecimal.class.equals(type)) {
+            return BigDecimal.ZERO;
+        } else if (int.class.equals(type) || Integer.class.equals(type)) {
+            return 0;
+        } else if (boolean.class.equals(type) || Boolean.class.equals(type)) {
+            return false;
+        } else if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        return "0";
+    }
+
     @Override
     public SqlTransaction getSqlTransaction() {
         return transaction;
@@ -113,15 +246,45 @@ public class H2Processor implements SqlProcessor {
         return tableMap;
     }
 
-    private String createTableQuery(String table, List<SqlColumn> columnList) {
+    @Override
+    public SqlPoolMetrics getPoolMetrics() {
+        return connectionPool.getMetrics();
+    }
+
+    @Override
+    public SqlPoolMetrics getReportPoolMetrics() {
+        return reportPool == null ? null : reportPool.getMetrics();
+    }
+
+    @Override
+    public SqlCacheStats getResultCacheStats() {
+        return resultCache.getStats();
+    }
+
+    @Override
+    public void clearResultCache() {
+        resultCache.clear();
+    }
+
+    @Override
+    public void close() {
+        asyncReader.shutdown();
+        reportAsyncReader.shutdown();
+        if (reportPool != null) {
+            reportPool.dispose();
+        }
+        connectionPool.dispose();
+    }
+
+    String createTableQuery(SqlTable table) {
         StringBuilder builder = new StringBuilder("create table if not exists ");
-        builder.append(getSchema()).append('.').append(table).append("(");
-        for (SqlColumn column : columnList) {
+        builder.append(getSchema()).append('.').append(table.getName()).append("(");
+        for (SqlColumn column : table) {
             builder.append(column.getName()).append(" ").append(getDataType(column));
             builder.append(", ");
         }
         builder.replace(builder.length() - 2, builder.length(), " ");
-        for (SqlColumn column : columnList) {
+        for (SqlColumn column : table) {
             if (column.isPrimaryKey()) {
                 builder.append(", primary key(").append(column.getName()).append(")");
                 break;
@@ -131,18 +294,44 @@ public class H2Processor implements SqlProcessor {
         return builder.toString();
     }
 
+    String addColumnQuery(SqlTable table, SqlColumn column) {
+        return "alter table " + getSchema() + '.' + table.getName() + " add column " + column.getName() + " "
+                + getDataType(column) + ";";
+    }
+
+    String alterColumnQuery(SqlTable table, SqlColumn column) {
+        return "alter table " + getSchema() + '.' + table.getName() + " alter column " + column.getName() + " "
+                + getDataType(column) + ";";
+    }
+
+    String createIndexQuery(SqlTable table, SqlIndex index) {
+        StringBuilder builder = new StringBuilder(index.isUnique() ? "create unique index" : "create index");
+        builder.append(" if not exists ").append(getSchema()).append('.').append(index.getName());
+        builder.append(" on ").append(getSchema()).append('.').append(table.getName()).append("(");
+        for (SqlColumn column : index.getColumnList()) {
+            builder.append(column.getName()).append(",");
+        }
+        builder.replace(builder.length() - 1, builder.length(), ");");
+        return builder.toString();
+    }
+
+    String foreignKeyQuery(SqlTable sqlTable, SqlColumn column) {
+        StringBuilder builder = new StringBuilder("alter table ");
+        builder.append(getSchema()).append('.').append(sqlTable.getName()).append(" add constraint ");
+        builder.append("fk_").append(sqlTable.getName()).append('_').append(column.getName());
+        builder.append(" foreign key (").append(column.getName()).append(") ");
+        builder.append(" references ");
+        SqlTable joinTable = column.getJoinTable();
+        builder.append(getSchema()).append(".").append(joinTable.getName()).append("(")
+                .append(joinTable.getPrimaryColumn().getName()).append(");");
+        return builder.toString();
+    }
+
     private List<String> alterTableQuery(SqlTable sqlTable) {
         List<String> referenceList = new ArrayList<>();
         for (SqlColumn column : sqlTable) {
             if (column.getJoinTable() != null) {
-                StringBuilder builder = new StringBuilder("alter table ");
-                builder.append(getSchema()).append('.').append(sqlTable.getName()).append(" add foreign key ");
-                builder.append("(").append(column.getName()).append(") ");
-                builder.append(" references ");
-                SqlTable joinTable = column.getJoinTable();
-                builder.append(getSchema()).append(".").append(joinTable.getName()).append("(")
-                        .append(joinTable.getPrimaryColumn().getName()).append(");");
-                referenceList.add(builder.toString());
+                referenceList.add(foreignKeyQuery(sqlTable, column));
             }
         }
         return referenceList;
@@ -178,6 +367,9 @@ public class H2Processor implements SqlProcessor {
         } else if (double.class.equals(type)) {
             return "double";
         } else if (Enum.class.isAssignableFrom(type)) {
+            if (column.getEnumStorage() != null && !SqlEnumStorage.Name.equals(column.getEnumStorage())) {
+                return "tinyint";
+            }
             return "varchar(" + getEnumLength() + ")";
         } else if (long.class.equals(type)) {
             return "bigint";
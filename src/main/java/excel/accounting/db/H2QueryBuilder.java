@@ -16,6 +16,7 @@ public class H2QueryBuilder implements QueryBuilder {
     private StringBuilder joinBuilder;
     private SqlQuery sqlQuery;
     private int limit = -1, offset = -1;
+    private boolean countQuery;
 
     H2QueryBuilder(String schema) {
         this.schema = schema;
@@ -84,6 +85,13 @@ public class H2QueryBuilder implements QueryBuilder {
         return H2QueryBuilder.this;
     }
 
+    @Override
+    public H2QueryBuilder selectCount(String table) {
+        selectTable = table;
+        countQuery = true;
+        return H2QueryBuilder.this;
+    }
+
     @Override
     public H2QueryBuilder where(String column, Object parameter) {
         getWhereQuery().where(column, parameter);
@@ -110,13 +118,13 @@ public class H2QueryBuilder implements QueryBuilder {
 
     @Override
     public H2QueryBuilder whereAndIn(String query, List<Object> parameters) {
-        getWhereQuery().whereOrIn(query, parameters);
+        getWhereQuery().whereAndIn(query, parameters);
         return H2QueryBuilder.this;
     }
 
     @Override
     public H2QueryBuilder whereAndIn(String query, Object[] parameters) {
-        getWhereQuery().whereOrIn(query, parameters);
+        getWhereQuery().whereAndIn(query, parameters);
         return H2QueryBuilder.this;
     }
 
@@ -141,6 +149,26 @@ public class H2QueryBuilder implements QueryBuilder {
         return H2QueryBuilder.this;
     }
 
+    @Override
+    public H2QueryBuilder seekAfter(String[] columns, Object[] keys) {
+        if (keys != null) {
+            getWhereQuery().whereAfter(columns, keys);
+        }
+        orderBy(columns);
+        return H2QueryBuilder.this;
+    }
+
+    @Override
+    public H2QueryBuilder seekBefore(String[] columns, Object[] keys) {
+        if (keys != null) {
+            getWhereQuery().whereBefore(columns, keys);
+        }
+        for (String col : columns) {
+            getOrderByColumns().add(col + " desc");
+        }
+        return H2QueryBuilder.this;
+    }
+
     @Override
     public SqlQuery getSqlQuery() {
         if (sqlQuery == null) {
@@ -161,10 +189,14 @@ public class H2QueryBuilder implements QueryBuilder {
     private void buildSelectQuery(SqlQuery sqlQuery) {
         StringBuilder sb = new StringBuilder();
         sb.append("select ");
-        for (String sel : selectColumns) {
-            sb.append(sel).append(",");
+        if (countQuery) {
+            sb.append("count(*) ");
+        } else {
+            for (String sel : selectColumns) {
+                sb.append(sel).append(",");
+            }
+            sb.replace(sb.toString().length() - 1, sb.toString().length(), " ");
         }
-        sb.replace(sb.toString().length() - 1, sb.toString().length(), " ");
         sb.append(" from ").append(getSchema()).append(".").append(selectTable);
         if (joinBuilder != null) {
             sb.append(" ").append(joinBuilder.toString());
@@ -173,10 +205,15 @@ public class H2QueryBuilder implements QueryBuilder {
             sb.append(" ").append(whereQuery.toString());
             sqlQuery.addAll(whereQuery.getParameterList());
         }
+        if (countQuery) {
+            sb.append(";");
+            sqlQuery.setQuery(sb.toString());
+            return;
+        }
         if (orderByColumns != null) {
-            StringBuilder orderByBuild = new StringBuilder();
+            StringBuilder orderByBuild = new StringBuilder(" order by ");
             for (String orderBy : orderByColumns) {
-                orderByBuild.append(" order by ").append(orderBy).append(",");
+                orderByBuild.append(orderBy).append(",");
             }
             orderByBuild.replace(orderByBuild.length() - 1, orderByBuild.length(), " ");
             sb.append(orderByBuild.toString());
@@ -3,30 +3,86 @@ package excel.accounting.db;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
  * Sql Reader
  */
 public class H2Reader implements SqlReader {
+    private static final int referenceChunkSize = 1000;
     private final H2Processor processor;
-
-    H2Reader(H2Processor processor) {
+    private final SqlConnectionPool connectionPool;
+    private final boolean report;
+
+    /**
+     * @param report true for the report reader, it reads committed rows on its own connections and bypasses the
+     *               result cache, its full table reads would only evict the master data
+     */
+    H2Reader(H2Processor processor, SqlConnectionPool connectionPool, boolean report) {
         this.processor = processor;
+        this.connectionPool = connectionPool;
+        this.report = report;
+    }
+
+    /**
+     * @return open unit of work of this thread, its reads see its own writes, null for the report reader
+     */
+    private SqlUnitOfWork getUnitOfWork() {
+        return report ? null : processor.getUnitOfWork();
     }
 
-    private Connection getConnection() throws SQLException {
-        return processor.getConnectionPool().getConnection();
+    private SqlConnection getConnection() throws SQLException {
+        SqlUnitOfWork unitOfWork = getUnitOfWork();
+        return unitOfWork != null ? unitOfWork.getConnection() : connectionPool.acquire();
     }
 
     private SqlProcessor getProcessor() {
         return processor;
     }
 
+    private <T> T read(String kind, SqlQuery sql, SqlResultLoader<T> loader, UnaryOperator<T> copier)
+            throws SQLException {
+        if (report || getUnitOfWork() != null) {
+            return loader.load();
+        }
+        return processor.getResultCache().read(kind, sql, loader, copier);
+    }
+
     @Override
     public Object objectValue(SqlQuery sql) throws SQLException {
-        Connection connection = null;
+        return read("value", sql, () -> queryValue(sql), value -> value);
+    }
+
+    @Override
+    public Object[] objectArray(SqlQuery sql) throws SQLException {
+        return read("array", sql, () -> queryArray(sql), H2Reader::copyArray);
+    }
+
+    @Override
+    public List<Object> objectList(SqlQuery sql) throws SQLException {
+        return read("list", sql, () -> queryList(sql), ArrayList::new);
+    }
+
+    @Override
+    public List<Object[]> objectArrayList(SqlQuery sql) throws SQLException {
+        return read("arrayList", sql, () -> queryArrayList(sql), H2Reader::copyArrayList);
+    }
+
+    @Override
+    public SqlMetaDataResult sqlMetaDataResult(SqlQuery sql) throws SQLException {
+        return read("metaData", sql, () -> queryMetaDataResult(sql),
+                result -> new SqlMetaDataResult(result.getMetaData(), copyArrayList(result.getObjectsList())));
+    }
+
+    private Object queryValue(SqlQuery sql) throws SQLException {
+        SqlConnection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
@@ -38,17 +94,16 @@ public class H2Reader implements SqlReader {
             if (resultSet.next()) {
                 data = resultSet.getObject(1);
             }
-            close(resultSet, statement, connection);
+            close(resultSet, connection);
             return data;
         } catch (SQLException ex) {
-            close(resultSet, statement, connection);
+            close(resultSet, connection);
             throw ex;
         }
     }
 
-    @Override
-    public Object[] objectArray(SqlQuery sql) throws SQLException {
-        Connection connection = null;
+    private Object[] queryArray(SqlQuery sql) throws SQLException {
+        SqlConnection connection = null;
         PreparedStatement statement = null;
         ResultSet result = null;
         try {
@@ -57,17 +112,16 @@ public class H2Reader implements SqlReader {
             addParameter(statement, sql.getParameterList());
             result = statement.executeQuery();
             Object[] dataArray = objectArray(result);
-            close(result, statement, connection);
+            close(result, connection);
             return dataArray;
         } catch (SQLException ex) {
-            close(result, statement, connection);
+            close(result, connection);
             throw ex;
         }
     }
 
-    @Override
-    public List<Object> objectList(SqlQuery sql) throws SQLException {
-        Connection connection = null;
+    private List<Object> queryList(SqlQuery sql) throws SQLException {
+        SqlConnection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
@@ -76,17 +130,16 @@ public class H2Reader implements SqlReader {
             addParameter(statement, sql.getParameterList());
             resultSet = statement.executeQuery();
             List<Object> dataList = objectList(resultSet);
-            close(resultSet, statement, connection);
+            close(resultSet, connection);
             return dataList;
         } catch (SQLException ex) {
-            close(resultSet, statement, connection);
+            close(resultSet, connection);
             throw ex;
         }
     }
 
-    @Override
-    public List<Object[]> objectArrayList(SqlQuery sql) throws SQLException {
-        Connection connection = null;
+    private List<Object[]> queryArrayList(SqlQuery sql) throws SQLException {
+        SqlConnection connection = null;
         PreparedStatement statement = null;
         ResultSet result = null;
         try {
@@ -95,20 +148,18 @@ public class H2Reader implements SqlReader {
             addParameter(statement, sql.getParameterList());
             result = statement.executeQuery();
             List<Object[]> resultList = objectArrayList(result);
-            close(result, statement, connection);
+            close(result, connection);
             return resultList;
         } catch (SQLException ex) {
-            close(result, statement, connection);
+            close(result, connection);
             throw ex;
         }
     }
 
-    @Override
-    public SqlMetaDataResult sqlMetaDataResult(SqlQuery sql) throws SQLException {
-        Connection connection = null;
+    private SqlMetaDataResult queryMetaDataResult(SqlQuery sql) throws SQLException {
+        SqlConnection connection = null;
         PreparedStatement statement = null;
         ResultSet result = null;
-        SqlMetaDataResult dataResult = null;
         try {
             connection = getConnection();
             statement = connection.prepareStatement(sql.toString());
@@ -116,13 +167,140 @@ public class H2Reader implements SqlReader {
             result = statement.executeQuery();
             SqlMetaData[] metaData = getMetaData(result);
             List<Object[]> resultList = objectArrayList(result);
-            dataResult = new SqlMetaDataResult(metaData, resultList);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+            return new SqlMetaDataResult(metaData, resultList);
+        } finally {
+            close(result, connection);
+        }
+    }
+
+    @Override
+    public long forEachRow(SqlQuery sql, int fetchSize, SqlRowHandler<Object[]> handler) throws SQLException {
+        SqlConnection connection = null;
+        PreparedStatement statement = null;
+        ResultSet result = null;
+        try {
+            connection = getConnection();
+            statement = prepareCursor(connection, sql, fetchSize);
+            result = statement.executeQuery();
+            final int columnCount = result.getMetaData().getColumnCount();
+            long rowCount = 0;
+            while (result.next()) {
+                rowCount += 1;
+                if (!handler.onSqlRow(objectArray(result, columnCount))) {
+                    break;
+                }
+            }
+            return rowCount;
         } finally {
-            close(result, statement, connection);
+            close(statement, result, connection);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> long forEachEntity(SqlQuery sql, int fetchSize, SqlRowHandler<T> handler) throws SQLException {
+        SqlConnection connection = null;
+        PreparedStatement statement = null;
+        ResultSet result = null;
+        try {
+            connection = getConnection();
+            statement = prepareCursor(connection, sql, fetchSize);
+            result = statement.executeQuery();
+            SqlMetaData[] metaData = getMetaData(result);
+            SqlTable table = SqlFactory.getValidOrmTable(getProcessor().getSqlTableMap(), metaData);
+            if (table == null) {
+                return 0;
+            }
+            SqlRowMapper rowMapper = table.getRowMapper();
+            int[] binding = rowMapper.bind(metaData);
+            long rowCount = 0;
+            while (result.next()) {
+                rowCount += 1;
+                T entity = (T) rowMapper.map(binding, objectArray(result, metaData.length));
+                if (!handler.onSqlRow(entity)) {
+                    break;
+                }
+            }
+            return rowCount;
+        } finally {
+            close(statement, result, connection);
+        }
+    }
+
+    @Override
+    public <T> List<T> entityList(SqlQuery sql) throws SQLException {
+        SqlMetaDataResult dataResult = read("metaData", sql, () -> queryMetaDataResult(sql),
+                result -> result);
+        return SqlFactory.toEntityList(getProcessor(), dataResult);
+    }
+
+    /**
+     * Entities read on a connection the caller holds, not cached
+     */
+    <T> List<T> entityList(SqlConnection connection, SqlQuery sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql.toString());
+        addParameter(statement, sql.getParameterList());
+        try (ResultSet result = statement.executeQuery()) {
+            SqlMetaData[] metaData = getMetaData(result);
+            return SqlFactory.toEntityList(getProcessor(), new SqlMetaDataResult(metaData, objectArrayList(result)));
+        }
+    }
+
+    @Override
+    public <T> SqlPager<T> pager(Class<?> entityClass, int pageSize, String... keyColumns) {
+        SqlTable table = getProcessor().getSqlTable(entityClass);
+        if (keyColumns.length == 0) {
+            keyColumns = new String[]{table.getPrimaryColumn().getName()};
+        }
+        return new SqlPager<>(getProcessor(), this, table, pageSize, keyColumns);
+    }
+
+    String explain(SqlQuery sql) throws SQLException {
+        SqlQuery explainQuery = new SqlQuery("explain " + sql.toString());
+        explainQuery.addAll(sql.getParameterList());
+        return (String) queryValue(explainQuery);
+    }
+
+    @Override
+    public SqlColumnarReader columnar(SqlQuery sql) {
+        return new SqlColumnarReader(this, sql);
+    }
+
+    SqlColumnarResult readColumns(SqlQuery sql, int fetchSize, List<SqlColumnVector> vectorList)
+            throws SQLException {
+        SqlConnection connection = null;
+        PreparedStatement statement = null;
+        ResultSet result = null;
+        try {
+            connection = getConnection();
+            statement = prepareCursor(connection, sql, fetchSize);
+            result = statement.executeQuery();
+            if (result.getMetaData().getColumnCount() < vectorList.size()) {
+                throw new SQLException("Columnar query selects less than " + vectorList.size() + " columns");
+            }
+            int capacity = 0 < fetchSize ? fetchSize : 64, rowCount = 0;
+            for (SqlColumnVector vector : vectorList) {
+                vector.resize(capacity);
+            }
+            while (result.next()) {
+                if (rowCount == capacity) {
+                    capacity = capacity * 2;
+                    for (SqlColumnVector vector : vectorList) {
+                        vector.resize(capacity);
+                    }
+                }
+                for (int index = 0; index < vectorList.size(); index++) {
+                    vectorList.get(index).read(result, index + 1, rowCount);
+                }
+                rowCount += 1;
+            }
+            for (SqlColumnVector vector : vectorList) {
+                vector.resize(rowCount);
+            }
+            return new SqlColumnarResult(rowCount, vectorList);
+        } finally {
+            close(statement, result, connection);
         }
-        return dataResult;
     }
 
     @Override
@@ -211,20 +389,55 @@ public class H2Reader implements SqlReader {
 
     @Override
     public Object getUsedReference(Class<?> entityClass, String code) throws SQLException {
-        List<SqlReference> referenceList = code == null ? null : getProcessor().getSqlReference(entityClass);
-        if (referenceList == null) {
+        if (code == null) {
             return null;
         }
+        List<String> tableList = findUsedReferences(entityClass, Collections.singletonList(code)).get(code);
+        return tableList == null ? null : code + " is used by " + String.join(", ", tableList);
+    }
+
+    @Override
+    public Map<String, List<String>> findUsedReferences(Class<?> entityClass, Collection<String> codes)
+            throws SQLException {
+        Map<String, List<String>> usedMap = new LinkedHashMap<>();
+        List<SqlReference> referenceList = getProcessor().getSqlReference(entityClass);
+        if (referenceList == null || referenceList.isEmpty() || codes == null || codes.isEmpty()) {
+            return usedMap;
+        }
+        List<String> codeList = new ArrayList<>(new LinkedHashSet<>(codes));
+        for (int fromIndex = 0; fromIndex < codeList.size(); fromIndex += referenceChunkSize) {
+            List<String> chunk = codeList.subList(fromIndex, Math.min(fromIndex + referenceChunkSize, codeList.size()));
+            for (Object[] row : objectArrayList(usedReferenceQuery(referenceList, chunk))) {
+                usedMap.computeIfAbsent(row[1].toString(), key -> new ArrayList<>()).add(row[0].toString());
+            }
+        }
+        return usedMap;
+    }
+
+    /**
+     * select distinct 'table', column from table where column in (...) union all ... for every referencing column
+     */
+    private SqlQuery usedReferenceQuery(List<SqlReference> referenceList, List<String> codeList) {
+        SqlQuery sqlQuery = new SqlQuery();
+        StringBuilder inBuilder = new StringBuilder("(");
+        for (int index = 0; index < codeList.size(); index++) {
+            inBuilder.append(index == 0 ? "?" : ",?");
+        }
+        inBuilder.append(")");
+        StringBuilder sb = new StringBuilder();
         for (SqlReference reference : referenceList) {
-            QueryBuilder tool = new H2QueryBuilder(getProcessor().getSchema());
-            tool.selectFrom(reference.getReferenceTable().getName()).selectColumns(reference.getReferenceColumn().getName());
-            tool.where(reference.getReferenceColumn().getName(), code);
-            Object object = objectValue(tool.getSqlQuery());
-            if (object != null) {
-                return object;
+            if (0 < sb.length()) {
+                sb.append(" union all ");
             }
+            final String tableName = reference.getReferenceTable().getName();
+            final String columnName = reference.getReferenceColumn().getName();
+            sb.append("select distinct '").append(tableName).append("', ").append(columnName).append(" from ")
+                    .append(getProcessor().getSchema()).append('.').append(tableName)
+                    .append(" where ").append(columnName).append(" in ").append(inBuilder);
+            sqlQuery.addAll(new ArrayList<>(codeList));
         }
-        return null;
+        sqlQuery.setQuery(sb.append(";").toString());
+        return sqlQuery;
     }
 
     @Override
@@ -232,10 +445,34 @@ public class H2Reader implements SqlReader {
         SqlTable sqlTable = getProcessor().getSqlTable(tableClass);
         H2QueryBuilder builder = new H2QueryBuilder(getProcessor().getSchema());
         builder.selectFrom(sqlTable.getName());
-        builder.selectColumns(sqlTable.getColumnFieldMap().keySet());
+        builder.selectColumns(sqlTable.getColumnNames());
         return builder;
     }
 
+    @Override
+    public SqlProjection projection(Class<?> entityClass, String... names) {
+        SqlTable table = getProcessor().getSqlTable(entityClass);
+        if (table == null || table.getPrimaryColumn() == null) {
+            throw new IllegalArgumentException(entityClass + " primary column not found to project");
+        }
+        return new SqlProjection(table, names);
+    }
+
+    @Override
+    public H2QueryBuilder selectBuilder(SqlProjection projection) {
+        H2QueryBuilder builder = new H2QueryBuilder(getProcessor().getSchema());
+        builder.selectFrom(projection.getTableName());
+        builder.selectColumns(projection.getColumnNames());
+        return builder;
+    }
+
+    @Override
+    public List<SqlRow> rowList(SqlProjection projection, SqlQuery sql) throws SQLException {
+        SqlMetaDataResult dataResult = read("metaData", sql, () -> queryMetaDataResult(sql),
+                result -> result);
+        return projection.toRowList(dataResult);
+    }
+
     private List<Object> objectList(ResultSet rs) throws SQLException {
         List<Object> dataList = new ArrayList<>();
         while (rs.next()) {
@@ -249,11 +486,7 @@ public class H2Reader implements SqlReader {
         final int columnCount = rs.getMetaData().getColumnCount();
         List<Object[]> dataList = new ArrayList<>();
         while (rs.next()) {
-            Object[] data = new Object[columnCount];
-            for (int col = 0; col < columnCount; col++) {
-                data[col] = rs.getObject(col + 1);
-            }
-            dataList.add(data);
+            dataList.add(objectArray(rs, columnCount));
         }
         return dataList;
     }
@@ -261,15 +494,31 @@ public class H2Reader implements SqlReader {
     private Object[] objectArray(ResultSet result) throws SQLException {
         int columnCount = result.getMetaData().getColumnCount();
         if (result.next()) {
-            Object[] data = new Object[columnCount];
-            for (int col = 0; col < columnCount; col++) {
-                data[col] = result.getObject(col + 1);
-            }
-            return data;
+            return objectArray(result, columnCount);
         }
         return null;
     }
 
+    private Object[] objectArray(ResultSet result, int columnCount) throws SQLException {
+        Object[] data = new Object[columnCount];
+        for (int col = 0; col < columnCount; col++) {
+            data[col] = result.getObject(col + 1);
+        }
+        return data;
+    }
+
+    /**
+     * Statement held until the cursor is closed, so reads on the same connection from the row handler do not
+     * reuse it and close the open result set
+     */
+    private PreparedStatement prepareCursor(SqlConnection connection, SqlQuery sql, int fetchSize)
+            throws SQLException {
+        PreparedStatement statement = connection.holdStatement(sql.toString());
+        statement.setFetchSize(0 < fetchSize ? fetchSize : 0);
+        addParameter(statement, sql.getParameterList());
+        return statement;
+    }
+
     private String[] textArray(Object[] objectArray) {
         String[] data = new String[objectArray.length];
         for (int ix = 0; ix < data.length; ix++) {
@@ -316,33 +565,53 @@ public class H2Reader implements SqlReader {
         return metaDataArray;
     }
 
-    private void close(ResultSet resultSet, PreparedStatement statement, Connection connection) {
-        if (resultSet != null) {
-            try {
-                resultSet.close();
-            } catch (Exception ex) {
-                // ignore
-            }
+    private static Object[] copyArray(Object[] objectArray) {
+        return objectArray == null ? null : objectArray.clone();
+    }
+
+    private static List<Object[]> copyArrayList(List<Object[]> objectsList) {
+        List<Object[]> copyList = new ArrayList<>(objectsList.size());
+        for (Object[] objectArray : objectsList) {
+            copyList.add(objectArray.clone());
         }
+        return copyList;
+    }
+
+    private void close(PreparedStatement statement, ResultSet resultSet, SqlConnection connection) {
+        closeResult(resultSet);
         if (statement != null) {
-            try {
-                statement.close();
-            } catch (Exception ex) {
-                // ignore
-            }
+            connection.releaseStatement(statement);
         }
-        if (connection != null) {
+        release(connection);
+    }
+
+    private void close(ResultSet resultSet, SqlConnection connection) {
+        closeResult(resultSet);
+        release(connection);
+    }
+
+    private void closeResult(ResultSet resultSet) {
+        if (resultSet != null) {
             try {
-                connection.close();
+                resultSet.close();
             } catch (Exception ex) {
                 // ignore
             }
         }
     }
 
+    private void release(SqlConnection connection) {
+        SqlUnitOfWork unitOfWork = getUnitOfWork();
+        if (unitOfWork == null || unitOfWork.getConnection() != connection) {
+            connectionPool.release(connection);
+        }
+    }
+
     private void addParameter(PreparedStatement statement, List<Object> objects) throws SQLException {
         int index = 1;
-        for (Object parameter : objects) {
+        for (Object object : objects) {
+            Object parameter = object instanceof Enum
+                    ? getProcessor().getSqlTableMap().encodeEnum((Enum<?>) object) : object;
             if (parameter == null) {
                 statement.setString(index, null);
             } else if (parameter instanceof String) {
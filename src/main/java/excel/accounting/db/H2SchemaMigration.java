@@ -0,0 +1,185 @@
+package excel.accounting.db;
+
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * H2 Schema Migration
+ * A checksum of the table metadata is kept in schema_version, startup compares it and skips all ddl
+ * when nothing changed. Otherwise only the difference against information_schema is applied: new tables,
+ * new columns, new indexes, missing foreign keys and enum columns moved between name and tinyint storage.
+ * Other changed or dropped columns are not migrated
+ */
+class H2SchemaMigration {
+    private static final Logger logger = Logger.getLogger(H2SchemaMigration.class);
+    private static final String versionTable = "schema_version";
+    private final H2Processor processor;
+
+    H2SchemaMigration(H2Processor processor) {
+        this.processor = processor;
+    }
+
+    int migrate() throws SQLException {
+        final long startTime = System.currentTimeMillis();
+        final String checksum = getChecksum();
+        createVersionTable();
+        Object[] current = processor.getSqlReader().objectArray(new SqlQuery("select version, checksum from "
+                + getVersionTable() + " order by version desc limit 1"));
+        if (current != null && checksum.equals(current[1])) {
+            logger.info("Schema is up to date, version " + current[0]);
+            return 0;
+        }
+        List<SqlQuery> queryList = diffQueries();
+        int version = current == null ? 1 : ((Number) current[0]).intValue() + 1;
+        SqlQuery versionQuery = new SqlQuery("insert into " + getVersionTable()
+                + " (version, checksum, applied_on) values (?, ?, current_timestamp)");
+        versionQuery.add(version);
+        versionQuery.add(checksum);
+        queryList.add(versionQuery);
+        processor.getSqlTransaction().executeCommit(queryList);
+        logger.info("Schema migrated to version " + version + ", " + (queryList.size() - 1) + " statements in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+        return queryList.size() - 1;
+    }
+
+    private void createVersionTable() throws SQLException {
+        List<SqlQuery> queryList = new ArrayList<>();
+        queryList.add(processor.createSchemaQuery());
+        queryList.add(new SqlQuery("create table if not exists " + getVersionTable()
+                + "(version integer, checksum varchar(64) not null, applied_on timestamp, primary key(version));"));
+        processor.getSqlTransaction().executeCommit(queryList);
+    }
+
+    private List<SqlQuery> diffQueries() throws SQLException {
+        final String schema = processor.getSchema().toUpperCase();
+        Set<String> tableSet = upperSet(schemaQuery("select table_name from information_schema.tables", schema));
+        Map<String, String> columnTypeMap = upperMap(schemaQuery("select table_name || '.' || column_name, "
+                + "type_name from information_schema.columns", schema));
+        Set<String> indexSet = upperSet(schemaQuery("select index_name from information_schema.indexes", schema));
+        SqlQuery referenceQuery = new SqlQuery("select fktable_name || '.' || fkcolumn_name "
+                + "from information_schema.cross_references where fktable_schema = ?");
+        referenceQuery.add(schema);
+        Set<String> referenceSet = upperSet(referenceQuery);
+        List<SqlQuery> tableQueries = new ArrayList<>();
+        List<SqlQuery> referenceQueries = new ArrayList<>();
+        for (SqlTable table : getSortedTables()) {
+            final String tableName = table.getName().toUpperCase();
+            if (!tableSet.contains(tableName)) {
+                tableQueries.add(new SqlQuery(processor.createTableQuery(table)));
+            } else {
+                for (SqlColumn column : table) {
+                    String columnType = columnTypeMap.get(tableName + "." + column.getName().toUpperCase());
+                    if (columnType == null) {
+                        tableQueries.add(new SqlQuery(processor.addColumnQuery(table, column)));
+                    } else if (column.getEnumStorage() != null) {
+                        addEnumStorageQueries(tableQueries, table, column, columnType);
+                    }
+                }
+            }
+            for (SqlIndex index : table.getIndexList()) {
+                if (!indexSet.contains(index.getName().toUpperCase())) {
+                    tableQueries.add(new SqlQuery(processor.createIndexQuery(table, index)));
+                }
+            }
+            for (SqlColumn column : table) {
+                if (column.getJoinTable() != null
+                        && !referenceSet.contains(tableName + "." + column.getName().toUpperCase())) {
+                    referenceQueries.add(new SqlQuery(processor.foreignKeyQuery(table, column)));
+                }
+            }
+        }
+        tableQueries.addAll(referenceQueries);
+        return tableQueries;
+    }
+
+    /**
+     * Enum column moved between name and tinyint storage, the stored values are rewritten as text on the
+     * varchar side of the type change so both statements can be repeated safely
+     */
+    private void addEnumStorageQueries(List<SqlQuery> queryList, SqlTable table, SqlColumn column,
+                                       String columnType) {
+        final boolean compact = !SqlEnumStorage.Name.equals(column.getEnumStorage());
+        if (compact ? !columnType.startsWith("VARCHAR") : !"TINYINT".equals(columnType)) {
+            return;
+        }
+        SqlEnumCodec codec = table.getEnumCodec(table.ordinalOf(column.getName()));
+        StringBuilder builder = new StringBuilder("update ").append(processor.getSchema()).append('.')
+                .append(table.getName()).append(" set ").append(column.getName()).append(" = case ")
+                .append(column.getName());
+        SqlQuery updateQuery = new SqlQuery();
+        for (Map.Entry<String, Object> entry : codec.getStoredValueMap().entrySet()) {
+            builder.append(" when ? then ?");
+            String code = entry.getValue().toString();
+            updateQuery.add(compact ? entry.getKey() : code);
+            updateQuery.add(compact ? code : entry.getKey());
+        }
+        updateQuery.setQuery(builder.append(" else ").append(column.getName()).append(" end;").toString());
+        SqlQuery alterQuery = new SqlQuery(processor.alterColumnQuery(table, column));
+        queryList.add(compact ? updateQuery : alterQuery);
+        queryList.add(compact ? alterQuery : updateQuery);
+    }
+
+    private SqlQuery schemaQuery(String query, String schema) {
+        SqlQuery sqlQuery = new SqlQuery(query + " where table_schema = ?");
+        sqlQuery.add(schema);
+        return sqlQuery;
+    }
+
+    private Set<String> upperSet(SqlQuery query) throws SQLException {
+        Set<String> resultSet = new HashSet<>();
+        for (Object value : processor.getSqlReader().objectList(query)) {
+            resultSet.add(value.toString().toUpperCase());
+        }
+        return resultSet;
+    }
+
+    private Map<String, String> upperMap(SqlQuery query) throws SQLException {
+        Map<String, String> resultMap = new HashMap<>();
+        for (Object[] values : processor.getSqlReader().objectArrayList(query)) {
+            resultMap.put(values[0].toString().toUpperCase(), values[1].toString().toUpperCase());
+        }
+        return resultMap;
+    }
+
+    /**
+     * Checksum over the generated ddl, so any change to a column type, length, index or reference counts
+     */
+    String getChecksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (SqlTable table : getSortedTables()) {
+                digest.update(processor.createTableQuery(table).getBytes(StandardCharsets.UTF_8));
+                for (SqlIndex index : table.getIndexList()) {
+                    digest.update(processor.createIndexQuery(table, index).getBytes(StandardCharsets.UTF_8));
+                }
+                for (SqlColumn column : table) {
+                    if (column.getJoinTable() != null) {
+                        digest.update(processor.foreignKeyQuery(table, column).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            StringBuilder builder = new StringBuilder();
+            for (byte value : digest.digest()) {
+                builder.append(String.format("%02x", value));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private List<SqlTable> getSortedTables() {
+        List<SqlTable> tableList = new ArrayList<>(processor.getSqlTableMap().values());
+        tableList.sort(Comparator.comparing(SqlTable::getName));
+        return tableList;
+    }
+
+    private String getVersionTable() {
+        return processor.getSchema() + "." + versionTable;
+    }
+}
@@ -3,160 +3,546 @@ package excel.accounting.db;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * H2 Transaction
+ * While the calling thread has a unit of work open, statements run on its connection and their commit, the cache
+ * invalidation and the entity snapshots wait for the commit of the unit of work. A failed statement rolls the
+ * whole unit of work back
  */
-public class H2Transaction extends AbstractTransaction implements SqlTransaction {
+public class H2Transaction implements SqlTransaction {
+    private static final int transitionChunkSize = 1000;
     private final H2Processor processor;
+    private final H2BulkLoader bulkLoader;
 
     H2Transaction(H2Processor processor) {
         this.processor = processor;
+        bulkLoader = new H2BulkLoader(processor);
     }
 
     private H2Processor getProcessor() {
         return processor;
     }
 
+    private SqlConnectionPool getConnectionPool() {
+        return getProcessor().getConnectionPool();
+    }
+
+    /**
+     * Connection of the unit of work of this thread, otherwise a pooled one
+     */
+    private SqlConnection acquire() throws SQLException {
+        SqlUnitOfWork unitOfWork = getProcessor().getUnitOfWork();
+        return unitOfWork != null ? unitOfWork.getConnection() : getConnectionPool().acquire();
+    }
+
+    private SqlUnitOfWork scopeOf(SqlConnection connection) {
+        SqlUnitOfWork unitOfWork = getProcessor().getUnitOfWork();
+        return unitOfWork != null && unitOfWork.getConnection() == connection ? unitOfWork : null;
+    }
+
+    /**
+     * @param committed runs once the rows are committed, for a unit of work when it commits
+     */
+    private void commit(SqlConnection connection, Runnable committed) throws SQLException {
+        SqlUnitOfWork unitOfWork = scopeOf(connection);
+        if (unitOfWork != null) {
+            unitOfWork.afterCommit(committed);
+            return;
+        }
+        connection.commit();
+        committed.run();
+    }
+
+    private void rollback(SqlConnection connection) {
+        SqlUnitOfWork unitOfWork = scopeOf(connection);
+        if (unitOfWork != null) {
+            unitOfWork.rollback();
+        } else {
+            connection.rollback();
+        }
+    }
+
+    private void release(SqlConnection connection) {
+        if (scopeOf(connection) == null) {
+            getConnectionPool().release(connection);
+        }
+    }
+
     @Override
     public void executeBatch(SqlQuery sqlQuery) throws SQLException {
-        Connection connection = getProcessor().getConnectionPool().getConnection();
-        connection.setAutoCommit(false);
+        SqlConnection connection = acquire();
         try {
+            connection.setAutoCommit(false);
             PreparedStatement statement = connection.prepareStatement(sqlQuery.toString());
             addParameter(statement, sqlQuery.getParameterList());
             statement.addBatch();
             statement.executeBatch();
-            connection.commit();
-            close(statement);
-            close(connection);
+            commit(connection, () -> invalidate(Collections.singleton(sqlQuery.toString())));
         } catch (SQLException ex) {
             rollback(connection);
             throw ex;
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public void executeCommit(SqlQuery sqlQuery) throws SQLException {
-        Connection connection = null;
+        SqlConnection connection = acquire();
         try {
-            connection = getProcessor().getConnectionPool().getConnection();
             connection.setAutoCommit(false);
             PreparedStatement statement = connection.prepareStatement(sqlQuery.toString());
             addParameter(statement, sqlQuery.getParameterList());
             statement.execute();
-            connection.commit();
-            close(connection);
+            commit(connection, () -> invalidate(Collections.singleton(sqlQuery.toString())));
         } catch (SQLException ex) {
             rollback(connection);
             throw ex;
+        } finally {
+            release(connection);
         }
     }
 
     @Override
     public SqlQuery insertQuery(Object object) {
-        SqlTable table = getProcessor().getSqlTable(object.getClass());
-        H2QueryBuilder builder = new H2QueryBuilder(getProcessor().getSchema());
-        builder.insertInto(table.getName());
-        for (SqlColumn sqlColumn : table) {
-            Object fieldValue = getFieldObject(object, sqlColumn.getFieldName());
-            builder.insertColumns(sqlColumn.getName(), fieldValue);
-        }
-        return builder.getSqlQuery();
+        return getWritePlan(object).createQuery(SqlWriteType.Insert, object);
     }
 
     @Override
     public SqlQuery updateQuery(Object object) {
-        SqlTable table = getProcessor().getSqlTable(object.getClass());
-        H2QueryBuilder builder = new H2QueryBuilder(getProcessor().getSchema());
-        builder.update(table.getName());
-        for (SqlColumn sqlColumn : table) {
-            Object fieldValue = getFieldObject(object, sqlColumn.getFieldName());
-            builder.updateColumns(sqlColumn.getName(), fieldValue);
-        }
-        return builder.getSqlQuery();
+        return getWritePlan(object).createQuery(SqlWriteType.Update, object);
     }
 
     @Override
     public SqlQuery deleteQuery(Object object) {
-        SqlTable table = getProcessor().getSqlTable(object.getClass());
-        H2QueryBuilder builder = new H2QueryBuilder(getProcessor().getSchema());
-        builder.deleteFrom(table.getName());
-        SqlColumn sqlColumn = table.getPrimaryColumn();
-        Object fieldValue = getFieldObject(object, sqlColumn.getFieldName());
-        builder.where(sqlColumn.getName(), fieldValue);
-        return builder.getSqlQuery();
+        return getWritePlan(object).createQuery(SqlWriteType.Delete, object);
     }
 
     @Override
-    public void executeBatch(List<SqlQuery> queries) throws SQLException {
-        Connection connection = getProcessor().getConnectionPool().getConnection();
-        connection.setAutoCommit(false);
+    public SqlQuery mergeQuery(Object object) {
+        return getWritePlan(object).createQuery(SqlWriteType.Merge, object);
+    }
+
+    @Override
+    public void insert(List<?> objects) throws SQLException {
+        executeTransaction(objects, planBinder(SqlWriteType.Insert));
+    }
+
+    @Override
+    public void update(List<?> objects) throws SQLException {
+        executeTransaction(changedRows(objects), planBinder(SqlWriteType.Update));
+    }
+
+    @Override
+    public void delete(List<?> objects) throws SQLException {
+        executeTransaction(objects, planBinder(SqlWriteType.Delete));
+    }
+
+    @Override
+    public void merge(List<?> objects) throws SQLException {
+        executeTransaction(objects, planBinder(SqlWriteType.Merge));
+    }
+
+    @Override
+    public SqlRowImage capture(Object object) {
+        return new SqlRowImage(object, getWritePlan(object).capture(object));
+    }
+
+    @Override
+    public void updateImages(List<SqlRowImage> images) throws SQLException {
+        Map<String, List<SqlRowImage>> queryMap = new LinkedHashMap<>();
+        for (SqlRowImage image : images) {
+            SqlWritePlan writePlan = getWritePlan(image.getRow());
+            if (writePlan.isChanged(image.getRow(), image.getValues())) {
+                String query = writePlan.getUpdateQuery(image.getRow(), image.getValues());
+                queryMap.computeIfAbsent(query, key -> new ArrayList<>()).add(image);
+            }
+        }
+        List<SqlRowImage> imageList = new ArrayList<>(images.size());
+        queryMap.values().forEach(imageList::addAll);
+        executeTransaction(imageList, imageBinder());
+    }
+
+    private SqlBatchBinder<SqlRowImage> imageBinder() {
+        return new SqlBatchBinder<SqlRowImage>() {
+            @Override
+            public String getQuery(SqlRowImage image) {
+                return getWritePlan(image.getRow()).getUpdateQuery(image.getRow(), image.getValues());
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, SqlRowImage image) throws SQLException {
+                getWritePlan(image.getRow()).bindUpdate(statement, image.getRow(), image.getValues());
+            }
+
+            @Override
+            public void committed(SqlRowImage image) {
+                getWritePlan(image.getRow()).snapshot(image.getRow(), image.getValues());
+            }
+        };
+    }
+
+    private SqlWritePlan getWritePlan(Object object) {
+        return getProcessor().getSqlTable(object.getClass()).getWritePlan();
+    }
+
+    /**
+     * Drop tracked entities without changes and group the rest by update column set, one batch per set
+     */
+    private List<Object> changedRows(List<?> objects) {
+        if (objects == null) {
+            return null;
+        }
+        Map<String, List<Object>> queryMap = new LinkedHashMap<>();
+        for (Object object : objects) {
+            SqlWritePlan writePlan = getWritePlan(object);
+            if (writePlan.isChanged(object)) {
+                String query = writePlan.getQuery(SqlWriteType.Update, object);
+                queryMap.computeIfAbsent(query, key -> new ArrayList<>()).add(object);
+            }
+        }
+        List<Object> rowList = new ArrayList<>(objects.size());
+        queryMap.values().forEach(rowList::addAll);
+        return rowList;
+    }
+
+    @Override
+    public SqlBatchResult executeBulk(List<SqlQuery> queries, int batchSize, SqlBatchListener listener)
+            throws SQLException {
+        return executeChunks(queries, batchSize, listener, queryBinder());
+    }
+
+    @Override
+    public SqlBatchResult insertBulk(List<?> objects, int batchSize, SqlBatchListener listener)
+            throws SQLException {
+        return executeChunks(objects, batchSize, listener, planBinder(SqlWriteType.Insert));
+    }
+
+    @Override
+    public SqlBatchResult updateBulk(List<?> objects, int batchSize, SqlBatchListener listener)
+            throws SQLException {
+        return executeChunks(changedRows(objects), batchSize, listener, planBinder(SqlWriteType.Update));
+    }
+
+    @Override
+    public SqlBatchResult deleteBulk(List<?> objects, int batchSize, SqlBatchListener listener)
+            throws SQLException {
+        return executeChunks(objects, batchSize, listener, planBinder(SqlWriteType.Delete));
+    }
+
+    @Override
+    public SqlBatchResult mergeBulk(List<?> objects, int batchSize, SqlBatchListener listener)
+            throws SQLException {
+        return executeChunks(objects, batchSize, listener, planBinder(SqlWriteType.Merge));
+    }
+
+    @Override
+    public SqlBulkLoadResult bulkLoad(List<?> objects) throws SQLException {
+        if (objects == null || objects.isEmpty()) {
+            return new SqlBulkLoadResult("", 0, 0, 0);
+        }
+        if (getProcessor().getUnitOfWork() != null) {
+            throw new SQLException("Bulk load commits on a connection of its own, not inside a unit of work");
+        }
         try {
-            SqlQuery sqlQuery = queries.get(0);
-            PreparedStatement statement = connection.prepareStatement(sqlQuery.toString());
-            for (SqlQuery sql : queries) {
-                addParameter(statement, sql.getParameterList());
-                statement.addBatch();
+            return bulkLoader.load(objects);
+        } finally {
+            invalidate(Collections.singleton(getWritePlan(objects.get(0)).getQuery(SqlWriteType.Insert)));
+        }
+    }
+
+    private SqlBatchBinder<SqlQuery> queryBinder() {
+        return new SqlBatchBinder<SqlQuery>() {
+            @Override
+            public String getQuery(SqlQuery row) {
+                return row.toString();
             }
-            statement.executeBatch();
-            connection.commit();
-            close(statement);
-            close(connection);
+
+            @Override
+            public void bind(PreparedStatement statement, SqlQuery row) throws SQLException {
+                addParameter(statement, row.getParameterList());
+            }
+        };
+    }
+
+    private SqlBatchBinder<Object> planBinder(final SqlWriteType type) {
+        return new SqlBatchBinder<Object>() {
+            @Override
+            public String getQuery(Object row) {
+                return getWritePlan(row).getQuery(type, row);
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, Object row) throws SQLException {
+                getWritePlan(row).bind(type, statement, row);
+            }
+
+            @Override
+            public void committed(Object row) {
+                if (!SqlWriteType.Delete.equals(type)) {
+                    getWritePlan(row).snapshot(row);
+                }
+            }
+        };
+    }
+
+    /**
+     * All rows in one transaction
+     */
+    private <T> void executeTransaction(List<? extends T> rows, SqlBatchBinder<T> binder) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        SqlConnection connection = acquire();
+        try {
+            connection.setAutoCommit(false);
+            executeRuns(connection, rows, 0, rows.size(), binder);
+            commit(connection, () -> committed(rows, 0, rows.size(), binder));
         } catch (SQLException ex) {
             rollback(connection);
             throw ex;
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * Tracked writes of a unit of work on the connection it holds, committed by the unit of work
+     */
+    void flush(SqlUnitOfWork unitOfWork, List<Object> inserts, List<Object> updates, List<Object> deletes)
+            throws SQLException {
+        final SqlConnection connection = unitOfWork.getConnection();
+        final List<Object> updateRows = changedRows(updates);
+        final SqlBatchBinder<Object> insertBinder = planBinder(SqlWriteType.Insert);
+        final SqlBatchBinder<Object> updateBinder = planBinder(SqlWriteType.Update);
+        final SqlBatchBinder<Object> deleteBinder = planBinder(SqlWriteType.Delete);
+        executeRuns(connection, inserts, 0, inserts.size(), insertBinder);
+        executeRuns(connection, updateRows, 0, updateRows.size(), updateBinder);
+        executeRuns(connection, deletes, 0, deletes.size(), deleteBinder);
+        unitOfWork.afterCommit(() -> {
+            committed(inserts, 0, inserts.size(), insertBinder);
+            committed(updateRows, 0, updateRows.size(), updateBinder);
+            committed(deletes, 0, deletes.size(), deleteBinder);
+        });
+    }
+
+    /**
+     * One transaction per chunk of batch size rows, a failed chunk is rolled back and the next chunk continues
+     * Inside a unit of work a failed chunk rolls back the unit of work and its error is thrown
+     */
+    private <T> SqlBatchResult executeChunks(List<? extends T> rows, int batchSize, SqlBatchListener listener,
+                                             SqlBatchBinder<T> binder) throws SQLException {
+        SqlBatchResult result = new SqlBatchResult(rows == null ? 0 : rows.size());
+        if (rows == null || rows.isEmpty()) {
+            return result;
+        }
+        final int chunkSize = 0 < batchSize ? batchSize : rows.size();
+        SqlConnection connection = acquire();
+        try {
+            connection.setAutoCommit(false);
+            for (int fromIndex = 0; fromIndex < rows.size(); fromIndex += chunkSize) {
+                final int chunkIndex = fromIndex;
+                final int toIndex = Math.min(fromIndex + chunkSize, rows.size());
+                try {
+                    executeRuns(connection, rows, fromIndex, toIndex, binder);
+                    commit(connection, () -> committed(rows, chunkIndex, toIndex, binder));
+                    result.addCommitted(toIndex - fromIndex);
+                    if (listener != null) {
+                        listener.onBatchCommitted(result.getCommittedCount(), result.getTotalCount());
+                    }
+                } catch (SQLException ex) {
+                    rollback(connection);
+                    result.addFailed(toIndex - fromIndex, ex);
+                    if (listener != null) {
+                        listener.onBatchFailed(fromIndex, toIndex, ex);
+                    }
+                    if (scopeOf(connection) != null) {
+                        throw ex;
+                    }
+                }
+            }
+        } finally {
+            release(connection);
         }
+        return result;
+    }
+
+    /**
+     * Consecutive rows of the same sql shape share one statement batch, statement order is kept
+     */
+    private <T> void executeRuns(SqlConnection connection, List<? extends T> rows, int fromIndex, int toIndex,
+                                 SqlBatchBinder<T> binder) throws SQLException {
+        String query = null;
+        PreparedStatement statement = null;
+        for (int index = fromIndex; index < toIndex; index++) {
+            T row = rows.get(index);
+            String rowQuery = binder.getQuery(row);
+            if (!rowQuery.equals(query)) {
+                if (statement != null) {
+                    statement.executeBatch();
+                }
+                query = rowQuery;
+                statement = connection.prepareStatement(query);
+            }
+            binder.bind(statement, row);
+            statement.addBatch();
+        }
+        if (statement != null) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Drop the cached results of the tables written by the committed rows, then let the binder see each row
+     */
+    private <T> void committed(List<? extends T> rows, int fromIndex, int toIndex, SqlBatchBinder<T> binder) {
+        Set<String> queries = new HashSet<>();
+        for (int index = fromIndex; index < toIndex; index++) {
+            queries.add(binder.getQuery(rows.get(index)));
+        }
+        invalidate(queries);
+        for (int index = fromIndex; index < toIndex; index++) {
+            binder.committed(rows.get(index));
+        }
+    }
+
+    private void invalidate(Collection<String> queries) {
+        getProcessor().getResultCache().invalidate(queries);
+    }
+
+    @Override
+    public void executeBatch(List<SqlQuery> queries) throws SQLException {
+        executeTransaction(queries, queryBinder());
     }
 
     @Override
     public void executeCommit(List<SqlQuery> queries) throws SQLException {
-        Connection connection = null;
+        executeUpdate(queries);
+    }
+
+    @Override
+    public <T> List<T> updateTransition(String column, Object fromValue, Object toValue, List<T> entities)
+            throws SQLException {
+        if (entities == null || entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Class<?> entityClass = entities.get(0).getClass();
+        final SqlTable table = getProcessor().getSqlTable(entityClass);
+        if (table == null || table.getPrimaryColumn() == null) {
+            throw new IllegalArgumentException(entityClass + " primary column not found to update " + column);
+        }
+        final int ordinal = table.ordinalOf(column);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException(entityClass + " column not found " + column);
+        }
+        final SqlWritePlan writePlan = table.getWritePlan();
+        final String primaryName = table.getPrimaryColumn().getName();
+        Map<Object, List<T>> entityMap = new LinkedHashMap<>();
+        for (T entity : entities) {
+            entityMap.computeIfAbsent(writePlan.getValue(writePlan.getPrimaryOrdinal(), entity),
+                    key -> new ArrayList<>()).add(entity);
+        }
+        List<Object> keyList = new ArrayList<>(entityMap.keySet());
+        Set<Object> updatedKeys = new HashSet<>();
+        List<T> updatedList = new ArrayList<>();
+        SqlConnection connection = acquire();
         try {
-            connection = getProcessor().getConnectionPool().getConnection();
             connection.setAutoCommit(false);
-            for (SqlQuery sql : queries) {
+            for (int fromIndex = 0; fromIndex < keyList.size(); fromIndex += transitionChunkSize) {
+                List<Object> chunk = new ArrayList<>(keyList.subList(fromIndex,
+                        Math.min(fromIndex + transitionChunkSize, keyList.size())));
+                QueryBuilder selectBuilder = getProcessor().createQueryBuilder();
+                selectBuilder.selectFrom(table.getName()).selectColumns(primaryName).where(column, fromValue)
+                        .whereAndIn(primaryName, chunk);
+                updatedKeys.addAll(selectKeys(connection, selectBuilder.getSqlQuery()));
+                QueryBuilder updateBuilder = getProcessor().createQueryBuilder();
+                updateBuilder.update(table.getName()).updateColumns(column, toValue).where(column, fromValue)
+                        .whereAndIn(primaryName, chunk);
+                SqlQuery sql = updateBuilder.getSqlQuery();
                 PreparedStatement statement = connection.prepareStatement(sql.toString());
                 addParameter(statement, sql.getParameterList());
                 statement.execute();
             }
-            connection.commit();
-            close(connection);
+            for (Object key : updatedKeys) {
+                updatedList.addAll(entityMap.get(key));
+            }
+            commit(connection, () -> {
+                getProcessor().getResultCache().invalidateTable(table.getName());
+                for (T entity : updatedList) {
+                    table.getRowMapper().setValue(ordinal, entity, toValue);
+                    writePlan.snapshotColumn(ordinal, entity);
+                }
+            });
         } catch (SQLException ex) {
             rollback(connection);
             throw ex;
+        } finally {
+            release(connection);
         }
+        return updatedList;
     }
 
-    private void rollback(Connection connection) {
-        try {
-            connection.rollback();
-        } catch (SQLException ex) {
-            // ignore
+    /**
+     * Keys of the rows still holding the previous value, locked until the transaction ends so the update that
+     * follows changes exactly these rows
+     */
+    private List<Object> selectKeys(SqlConnection connection, SqlQuery sql) throws SQLException {
+        String query = sql.toString().trim();
+        if (query.endsWith(";")) {
+            query = query.substring(0, query.length() - 1);
         }
-    }
-
-    private void close(Statement statement) {
-        try {
-            statement.close();
-        } catch (Exception ex) {
-            // ignore
+        PreparedStatement statement = connection.prepareStatement(query + " for update");
+        addParameter(statement, sql.getParameterList());
+        List<Object> keyList = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keyList.add(resultSet.getObject(1));
+            }
         }
+        return keyList;
     }
 
-    private void close(Connection connection) {
+    /**
+     * All queries in one transaction
+     *
+     * @return sum of the update counts
+     */
+    private int executeUpdate(List<SqlQuery> queries) throws SQLException {
+        SqlConnection connection = acquire();
         try {
-            connection.close();
-        } catch (Exception ex) {
-            // ignore
+            connection.setAutoCommit(false);
+            int updateCount = 0;
+            for (SqlQuery sql : queries) {
+                PreparedStatement statement = connection.prepareStatement(sql.toString());
+                addParameter(statement, sql.getParameterList());
+                statement.execute();
+                updateCount += Math.max(0, statement.getUpdateCount());
+            }
+            commit(connection, () -> invalidate(queries.stream().map(SqlQuery::toString)
+                    .collect(Collectors.toSet())));
+            return updateCount;
+        } catch (SQLException ex) {
+            rollback(connection);
+            throw ex;
+        } finally {
+            release(connection);
         }
     }
 
     private void addParameter(PreparedStatement statement, List<Object> objects) throws SQLException {
         int index = 1;
-        for (Object parameter : objects) {
+        for (Object object : objects) {
+            Object parameter = object instanceof Enum
+                    ? getProcessor().getSqlTableMap().encodeEnum((Enum<?>) object) : object;
             if (parameter == null) {
                 statement.setString(index, null);
             } else if (parameter instanceof String) {
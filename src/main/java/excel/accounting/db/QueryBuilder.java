@@ -29,6 +29,8 @@ public interface QueryBuilder {
 
     QueryBuilder selectFrom(String table);
 
+    QueryBuilder selectCount(String table);
+
     QueryBuilder where(String column, Object parameter);
 
     QueryBuilder where(SearchTextQuery searchTextQuery);
@@ -46,4 +48,14 @@ public interface QueryBuilder {
     QueryBuilder limit(int limit);
 
     QueryBuilder limitOffset(int limit, int offset);
+
+    /**
+     * Ascending page after the key, null keys start from the first row
+     */
+    QueryBuilder seekAfter(String[] columns, Object[] keys);
+
+    /**
+     * Descending page before the key, null keys start from the last row
+     */
+    QueryBuilder seekBefore(String[] columns, Object[] keys);
 }
@@ -0,0 +1,129 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sql Async Reader
+ * Queries run on a bounded worker pool and complete on the callback executor (the FX application thread).
+ * A query submitted with the key of a pending query supersedes it; the older result is never delivered.
+ */
+public class SqlAsyncReader {
+    private final SqlReader reader;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<?>> pendingMap;
+    private volatile Executor callbackExecutor;
+
+    SqlAsyncReader(SqlReader reader, String name, int threadCount, int queueSize, int threadPriority) {
+        this.reader = reader;
+        pendingMap = new ConcurrentHashMap<>();
+        callbackExecutor = Runnable::run;
+        final AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "sql-async-" + name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(threadPriority);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    public <T> CompletableFuture<List<T>> entityList(String key, SqlQuery query) {
+        final CompletableFuture<List<T>> future = new CompletableFuture<>();
+        submit(key, future, () -> {
+            List<T> resultList = new ArrayList<>();
+            reader.forEachEntity(query, 0, (T entity) -> {
+                resultList.add(entity);
+                return !future.isDone();
+            });
+            return resultList;
+        });
+        return future;
+    }
+
+    public CompletableFuture<List<SqlRow>> rowList(String key, SqlProjection projection, SqlQuery query) {
+        final CompletableFuture<List<SqlRow>> future = new CompletableFuture<>();
+        submit(key, future, () -> reader.rowList(projection, query));
+        return future;
+    }
+
+    public CompletableFuture<SqlMetaDataResult> sqlMetaDataResult(String key, SqlQuery query, SqlFuture sqlFuture) {
+        final CompletableFuture<SqlMetaDataResult> future = new CompletableFuture<>();
+        future.whenComplete((dataResult, ex) -> {
+            if (ex == null) {
+                sqlFuture.onSqlFuture(dataResult);
+            } else if (ex instanceof SQLException) {
+                sqlFuture.onSqlError(query, (SQLException) ex);
+            } else if (!(ex instanceof CancellationException)) {
+                ex.printStackTrace();
+            }
+        });
+        submit(key, future, () -> reader.sqlMetaDataResult(query));
+        return future;
+    }
+
+    public void cancel(String key) {
+        CompletableFuture<?> future = pendingMap.remove(key);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    void shutdown() {
+        pendingMap.values().forEach(future -> future.cancel(false));
+        pendingMap.clear();
+        executor.shutdownNow();
+    }
+
+    private <R> void submit(final String key, final CompletableFuture<R> future, final Callable<R> callable) {
+        if (key != null) {
+            CompletableFuture<?> superseded = pendingMap.put(key, future);
+            if (superseded != null) {
+                superseded.cancel(false);
+            }
+        }
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    R result = callable.call();
+                    callbackExecutor.execute(() -> complete(key, future, result));
+                } catch (Exception ex) {
+                    callbackExecutor.execute(() -> completeExceptionally(key, future, ex));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            SQLException sqlEx = new SQLException("Sql async reader queue is full", ex);
+            callbackExecutor.execute(() -> completeExceptionally(key, future, sqlEx));
+        }
+    }
+
+    private <R> void complete(String key, CompletableFuture<R> future, R result) {
+        if (key != null) {
+            pendingMap.remove(key, future);
+        }
+        future.complete(result);
+    }
+
+    private void completeExceptionally(String key, CompletableFuture<?> future, Exception ex) {
+        if (key != null) {
+            pendingMap.remove(key, future);
+        }
+        future.completeExceptionally(ex);
+    }
+}
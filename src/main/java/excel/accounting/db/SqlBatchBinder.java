@@ -0,0 +1,19 @@
+package excel.accounting.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sql Batch Binder, sql shape and parameters of one batch row
+ */
+interface SqlBatchBinder<T> {
+    String getQuery(T row);
+
+    void bind(PreparedStatement statement, T row) throws SQLException;
+
+    /**
+     * Called for every row of a committed transaction
+     */
+    default void committed(T row) {
+    }
+}
@@ -0,0 +1,18 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+
+/**
+ * Sql Batch Listener, progress of a chunked bulk write
+ */
+public interface SqlBatchListener {
+    default void onBatchCommitted(int committedCount, int totalCount) {
+    }
+
+    /**
+     * @param fromIndex first row of the rolled back chunk, inclusive
+     * @param toIndex   last row of the rolled back chunk, exclusive
+     */
+    default void onBatchFailed(int fromIndex, int toIndex, SQLException ex) {
+    }
+}
@@ -0,0 +1,48 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sql Batch Result
+ */
+public class SqlBatchResult {
+    private final int totalCount;
+    private int committedCount, failedCount;
+    private List<SQLException> errorList;
+
+    SqlBatchResult(int totalCount) {
+        this.totalCount = totalCount;
+        errorList = new ArrayList<>();
+    }
+
+    void addCommitted(int count) {
+        committedCount += count;
+    }
+
+    void addFailed(int count, SQLException ex) {
+        failedCount += count;
+        errorList.add(ex);
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getCommittedCount() {
+        return committedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public List<SQLException> getErrorList() {
+        return errorList;
+    }
+
+    public boolean isSuccess() {
+        return failedCount == 0;
+    }
+}
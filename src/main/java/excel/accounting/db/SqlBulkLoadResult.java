@@ -0,0 +1,47 @@
+package excel.accounting.db;
+
+/**
+ * Sql Bulk Load Result
+ */
+public class SqlBulkLoadResult {
+    private final String tableName;
+    private final int rowCount;
+    private final long stageNanos, loadNanos;
+
+    SqlBulkLoadResult(String tableName, int rowCount, long stageNanos, long loadNanos) {
+        this.tableName = tableName;
+        this.rowCount = rowCount;
+        this.stageNanos = stageNanos;
+        this.loadNanos = loadNanos;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getStageMillis() {
+        return stageNanos / 1000000L;
+    }
+
+    public long getLoadMillis() {
+        return loadNanos / 1000000L;
+    }
+
+    /**
+     * @return rows per second of staging and loading together
+     */
+    public long getRowsPerSecond() {
+        long totalNanos = stageNanos + loadNanos;
+        return totalNanos == 0 ? rowCount : rowCount * 1000000000L / totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return tableName + " " + rowCount + " rows, staged " + getStageMillis() + " ms, loaded "
+                + getLoadMillis() + " ms, " + getRowsPerSecond() + " rows/sec";
+    }
+}
@@ -0,0 +1,62 @@
+package excel.accounting.db;
+
+/**
+ * Sql Cache Stats, snapshot of the query result cache counters
+ * Bypasses count the reads of tables that are not cached
+ */
+public class SqlCacheStats {
+    private final int size;
+    private final long rowCount, maxRows;
+    private final long hitCount, missCount, bypassCount, invalidationCount;
+
+    SqlCacheStats(int size, long rowCount, long maxRows, long hitCount, long missCount, long bypassCount,
+                  long invalidationCount) {
+        this.size = size;
+        this.rowCount = rowCount;
+        this.maxRows = maxRows;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.bypassCount = bypassCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getBypassCount() {
+        return bypassCount;
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size + ", rows=" + rowCount + "/" + maxRows + ", hits=" + hitCount + ", misses=" + missCount
+                + ", bypassed=" + bypassCount + ", invalidations=" + invalidationCount
+                + ", hitRate=" + String.format("%.3f", getHitRate());
+    }
+}
@@ -0,0 +1,15 @@
+package excel.accounting.db;
+
+/**
+ * Sql Catalog, entity table metadata generated at compile time by SqlTableProcessor
+ * Columns are registered in their final order with indexes already named, so startup only resolves joins
+ */
+interface SqlCatalog {
+
+    /**
+     * Packages of the entity classes, the catalog is used only when it covers every requested package
+     */
+    String[] getPackages();
+
+    void register(SqlCatalogBuilder builder);
+}
@@ -0,0 +1,114 @@
+package excel.accounting.db;
+
+import javax.persistence.TemporalType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sql Catalog Builder, builds the table map from the calls of a generated catalog
+ * Fields are looked up by name along the entity class hierarchy and give the column type,
+ * no class path scanning is involved
+ */
+class SqlCatalogBuilder {
+    private final SqlTableMap tableMap;
+    private final Map<SqlColumn, String> joinMap;
+    private SqlTable table;
+    private List<SqlColumn> columnList;
+    private List<Field> fieldList;
+    private List<SqlIndex> indexList;
+
+    SqlCatalogBuilder(String schema) {
+        tableMap = new SqlTableMap(schema);
+        joinMap = new IdentityHashMap<>();
+    }
+
+    void table(Class<?> type, String name) {
+        finishTable();
+        table = new SqlTable(name, type);
+        columnList = new ArrayList<>();
+        fieldList = new ArrayList<>();
+        indexList = new ArrayList<>();
+        tableMap.put(type, table);
+    }
+
+    void column(String fieldName, String name, int length, boolean nullable, boolean primaryKey, boolean autoIncrement,
+                TemporalType temporalType) {
+        Field field = findField(fieldName == null ? name : fieldName);
+        SqlColumn column = new SqlColumn(name, field.getType());
+        column.setFieldName(fieldName);
+        column.setLength(length);
+        column.setNullable(nullable);
+        column.setPrimaryKey(primaryKey);
+        column.setAutoIncrement(autoIncrement);
+        column.setTemporalType(temporalType);
+        addColumn(field, column);
+    }
+
+    void joinColumn(String fieldName, String name, boolean nullable, String joinTable) {
+        Field field = findField(fieldName);
+        SqlColumn column = new SqlColumn(name, field.getType());
+        column.setFieldName(fieldName);
+        column.setNullable(nullable);
+        joinMap.put(column, joinTable);
+        addColumn(field, column);
+    }
+
+    void index(String name, boolean unique, String... columnNames) {
+        List<SqlColumn> indexColumns = new ArrayList<>();
+        for (String columnName : columnNames) {
+            indexColumns.add(findColumn(columnName));
+        }
+        indexList.add(new SqlIndex(name, indexColumns, unique));
+    }
+
+    SqlTableMap build() {
+        finishTable();
+        for (Map.Entry<SqlColumn, String> entry : joinMap.entrySet()) {
+            SqlTable joinTable = tableMap.getSqlTable(entry.getValue());
+            if (joinTable == null) {
+                throw new IllegalStateException("Catalog join table not found " + entry.getValue());
+            }
+            entry.getKey().setJoinTable(joinTable);
+            entry.getKey().setLength(joinTable.getPrimaryColumn().getLength());
+        }
+        return tableMap;
+    }
+
+    private void addColumn(Field field, SqlColumn column) {
+        columnList.add(column);
+        fieldList.add(field);
+    }
+
+    private void finishTable() {
+        if (table != null) {
+            table.setFieldList(fieldList);
+            table.setColumns(columnList);
+            table.setIndexList(indexList);
+            table = null;
+        }
+    }
+
+    private Field findField(String fieldName) {
+        for (Class<?> type = table.getType(); type != null; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException ex) {
+                // declared by a super class
+            }
+        }
+        throw new IllegalStateException(table.getType() + " catalog field not found " + fieldName
+                + ", the generated catalog is out of date");
+    }
+
+    private SqlColumn findColumn(String columnName) {
+        for (SqlColumn column : columnList) {
+            if (columnName.equals(column.getName())) {
+                return column;
+            }
+        }
+        throw new IllegalStateException(table.getType() + " catalog index column not found " + columnName);
+    }
+}
@@ -15,6 +15,7 @@ public class SqlColumn {
     private TemporalType temporalType;
     private int colIndex;
     private SQLType sqlType;
+    private SqlEnumStorage enumStorage;
 
     public SqlColumn(String name, Class<?> type) {
         this.name = name;
@@ -26,11 +27,11 @@ public class SqlColumn {
         return fieldName;
     }
 
-    public void setFieldName(String fieldName) {
+    void setFieldName(String fieldName) {
         this.fieldName = fieldName;
     }
 
-    public void setJoinTable(SqlTable joinTable) {
+    void setJoinTable(SqlTable joinTable) {
         this.joinTable = joinTable;
     }
 
@@ -38,15 +39,15 @@ public class SqlColumn {
         return joinTable;
     }
 
-    public void setPrimaryKey(boolean primaryKey) {
+    void setPrimaryKey(boolean primaryKey) {
         this.primaryKey = primaryKey;
     }
 
-    public void setAutoIncrement(boolean autoIncrement) {
+    void setAutoIncrement(boolean autoIncrement) {
         this.autoIncrement = autoIncrement;
     }
 
-    public void setLength(int length) {
+    void setLength(int length) {
         this.length = length;
     }
 
@@ -54,7 +55,7 @@ public class SqlColumn {
         return nullable;
     }
 
-    public void setNullable(boolean nullable) {
+    void setNullable(boolean nullable) {
         this.nullable = nullable;
     }
 
@@ -82,7 +83,7 @@ public class SqlColumn {
         return temporalType;
     }
 
-    public void setTemporalType(TemporalType temporalType) {
+    void setTemporalType(TemporalType temporalType) {
         this.temporalType = temporalType;
     }
 
@@ -90,7 +91,7 @@ public class SqlColumn {
         return colIndex;
     }
 
-    public void setColIndex(int colIndex) {
+    void setColIndex(int colIndex) {
         this.colIndex = colIndex;
     }
 
@@ -98,10 +99,21 @@ public class SqlColumn {
         return sqlType;
     }
 
-    public void setSqlType(SQLType sqlType) {
+    void setSqlType(SQLType sqlType) {
         this.sqlType = sqlType;
     }
 
+    /**
+     * @return storage of an enum column, null for other types
+     */
+    public SqlEnumStorage getEnumStorage() {
+        return enumStorage;
+    }
+
+    void setEnumStorage(SqlEnumStorage enumStorage) {
+        this.enumStorage = enumStorage;
+    }
+
     public boolean isEnumClass() {
         return Enum.class.isAssignableFrom(type);
     }
@@ -0,0 +1,97 @@
+package excel.accounting.db;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sql Column Vector, one result column read straight into a primitive array
+ * Decimals are kept as unscaled longs of a fixed scale, null cells are marked in a bit set
+ */
+class SqlColumnVector {
+    private final String name;
+    private final SqlVectorType type;
+    private final int scale;
+    private final BitSet nullSet;
+    private int[] intArray;
+    private long[] longArray;
+    private double[] doubleArray;
+    private String[] textArray;
+
+    SqlColumnVector(String name, SqlVectorType type, int scale) {
+        this.name = name;
+        this.type = type;
+        this.scale = scale;
+        nullSet = new BitSet();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    SqlVectorType getType() {
+        return type;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    boolean isNull(int row) {
+        return nullSet.get(row);
+    }
+
+    int[] getIntArray() {
+        return intArray;
+    }
+
+    long[] getLongArray() {
+        return longArray;
+    }
+
+    double[] getDoubleArray() {
+        return doubleArray;
+    }
+
+    String[] getTextArray() {
+        return textArray;
+    }
+
+    /**
+     * Resize the column array, used to grow while reading and to trim to the row count after
+     */
+    void resize(int capacity) {
+        if (SqlVectorType.Int.equals(type)) {
+            intArray = intArray == null ? new int[capacity] : Arrays.copyOf(intArray, capacity);
+        } else if (SqlVectorType.Long.equals(type) || SqlVectorType.Decimal.equals(type)) {
+            longArray = longArray == null ? new long[capacity] : Arrays.copyOf(longArray, capacity);
+        } else if (SqlVectorType.Double.equals(type)) {
+            doubleArray = doubleArray == null ? new double[capacity] : Arrays.copyOf(doubleArray, capacity);
+        } else {
+            textArray = textArray == null ? new String[capacity] : Arrays.copyOf(textArray, capacity);
+        }
+    }
+
+    void read(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+        if (SqlVectorType.Int.equals(type)) {
+            intArray[row] = resultSet.getInt(columnIndex);
+        } else if (SqlVectorType.Long.equals(type)) {
+            longArray[row] = resultSet.getLong(columnIndex);
+        } else if (SqlVectorType.Double.equals(type)) {
+            doubleArray[row] = resultSet.getDouble(columnIndex);
+        } else if (SqlVectorType.Decimal.equals(type)) {
+            BigDecimal value = resultSet.getBigDecimal(columnIndex);
+            if (value != null) {
+                longArray[row] = value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            }
+        } else {
+            textArray[row] = resultSet.getString(columnIndex);
+        }
+        if (resultSet.wasNull()) {
+            nullSet.set(row);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sql Columnar Reader, declares the primitive type of each selected column in select order
+ * <pre>
+ * reader.columnar(query).textColumn("account").decimalColumn("total", 2).read();
+ * </pre>
+ */
+public class SqlColumnarReader {
+    private final H2Reader reader;
+    private final SqlQuery query;
+    private final List<SqlColumnVector> vectorList;
+    private int fetchSize;
+
+    SqlColumnarReader(H2Reader reader, SqlQuery query) {
+        this.reader = reader;
+        this.query = query;
+        vectorList = new ArrayList<>();
+    }
+
+    public SqlColumnarReader intColumn(String name) {
+        return addColumn(name, SqlVectorType.Int, 0);
+    }
+
+    public SqlColumnarReader longColumn(String name) {
+        return addColumn(name, SqlVectorType.Long, 0);
+    }
+
+    public SqlColumnarReader doubleColumn(String name) {
+        return addColumn(name, SqlVectorType.Double, 0);
+    }
+
+    public SqlColumnarReader decimalColumn(String name, int scale) {
+        return addColumn(name, SqlVectorType.Decimal, scale);
+    }
+
+    public SqlColumnarReader textColumn(String name) {
+        return addColumn(name, SqlVectorType.Text, 0);
+    }
+
+    /**
+     * @param fetchSize rows per round trip, also the initial array capacity
+     */
+    public SqlColumnarReader fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return SqlColumnarReader.this;
+    }
+
+    public SqlColumnarResult read() throws SQLException {
+        List<SqlColumnVector> readList = new ArrayList<>(vectorList.size());
+        for (SqlColumnVector vector : vectorList) {
+            readList.add(new SqlColumnVector(vector.getName(), vector.getType(), vector.getScale()));
+        }
+        return reader.readColumns(query, fetchSize, readList);
+    }
+
+    private SqlColumnarReader addColumn(String name, SqlVectorType type, int scale) {
+        vectorList.add(new SqlColumnVector(name, type, scale));
+        return SqlColumnarReader.this;
+    }
+}
@@ -0,0 +1,83 @@
+package excel.accounting.db;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sql Columnar Result, one primitive array per column sized to the row count
+ * Null cells read as zero (or null text), isNull tells them apart
+ */
+public class SqlColumnarResult {
+    private final int rowCount;
+    private final List<SqlColumnVector> vectorList;
+
+    SqlColumnarResult(int rowCount, List<SqlColumnVector> vectorList) {
+        this.rowCount = rowCount;
+        this.vectorList = vectorList;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return vectorList.size();
+    }
+
+    public boolean isNull(String column, int row) {
+        return getVector(column, null).isNull(row);
+    }
+
+    public int[] getIntColumn(String column) {
+        return getVector(column, SqlVectorType.Int).getIntArray();
+    }
+
+    public long[] getLongColumn(String column) {
+        return getVector(column, SqlVectorType.Long).getLongArray();
+    }
+
+    public double[] getDoubleColumn(String column) {
+        return getVector(column, SqlVectorType.Double).getDoubleArray();
+    }
+
+    public String[] getTextColumn(String column) {
+        return getVector(column, SqlVectorType.Text).getTextArray();
+    }
+
+    /**
+     * @return decimal column as unscaled values of getScale(column)
+     */
+    public long[] getUnscaledColumn(String column) {
+        return getVector(column, SqlVectorType.Decimal).getLongArray();
+    }
+
+    public int getScale(String column) {
+        return getVector(column, SqlVectorType.Decimal).getScale();
+    }
+
+    public BigDecimal getDecimal(String column, int row) {
+        SqlColumnVector vector = getVector(column, SqlVectorType.Decimal);
+        return vector.isNull(row) ? null : BigDecimal.valueOf(vector.getLongArray()[row], vector.getScale());
+    }
+
+    public BigDecimal getDecimalSum(String column) {
+        SqlColumnVector vector = getVector(column, SqlVectorType.Decimal);
+        long sum = 0;
+        for (long value : vector.getLongArray()) {
+            sum = Math.addExact(sum, value);
+        }
+        return BigDecimal.valueOf(sum, vector.getScale());
+    }
+
+    private SqlColumnVector getVector(String column, SqlVectorType type) {
+        for (SqlColumnVector vector : vectorList) {
+            if (vector.getName().equals(column)) {
+                if (type != null && !type.equals(vector.getType())) {
+                    throw new IllegalArgumentException(column + " is a " + vector.getType() + " column");
+                }
+                return vector;
+            }
+        }
+        throw new IllegalArgumentException(column + " column not found");
+    }
+}
@@ -0,0 +1,124 @@
+package excel.accounting.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sql Connection, pooled connection with its own prepared statement cache
+ * Statements returned by prepareStatement are owned by the cache and must not be closed by the caller, a statement
+ * whose result set stays open while other code may use the connection is taken with holdStatement and handed back
+ * with releaseStatement
+ */
+class SqlConnection {
+    private final Connection connection;
+    private final SqlStatementCache statementCache;
+    private long acquiredAt, releasedAt;
+    private String acquiredBy;
+    private Throwable acquiredTrace;
+    private boolean leakReported;
+
+    SqlConnection(Connection connection, int statementCacheSize) {
+        this.connection = connection;
+        statementCache = new SqlStatementCache(statementCacheSize);
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    SqlStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * @param acquiredTrace stack of the acquirer, null unless leak tracing is on
+     */
+    void setAcquired(long acquiredAt, String acquiredBy, Throwable acquiredTrace) {
+        this.acquiredAt = acquiredAt;
+        this.acquiredBy = acquiredBy;
+        this.acquiredTrace = acquiredTrace;
+        leakReported = false;
+    }
+
+    long getReleasedAt() {
+        return releasedAt;
+    }
+
+    void setReleasedAt(long releasedAt) {
+        this.releasedAt = releasedAt;
+    }
+
+    long getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    String getAcquiredBy() {
+        return acquiredBy;
+    }
+
+    Throwable getAcquiredTrace() {
+        return acquiredTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    boolean isValid(int timeout) {
+        try {
+            return connection.isValid(timeout);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementCache.prepare(connection, sql);
+    }
+
+    PreparedStatement holdStatement(String sql) throws SQLException {
+        return statementCache.hold(connection, sql);
+    }
+
+    void releaseStatement(PreparedStatement statement) {
+        statementCache.release(statement);
+    }
+
+    void setAutoCommit(boolean autoCommit) throws SQLException {
+        connection.setAutoCommit(autoCommit);
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+    }
+
+    void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ex) {
+            // ignore
+        }
+    }
+
+    boolean isClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException ex) {
+            return true;
+        }
+    }
+
+    void close() {
+        statementCache.closeAll();
+        try {
+            connection.close();
+        } catch (Exception ex) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package excel.accounting.db;
+
+import org.apache.log4j.Logger;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sql Connection Pool
+ * Keeps the connections of JdbcConnectionPool open while idle so their prepared statements survive between calls
+ * At most max connections are open, an acquire waits on the idle queue for a release up to the acquire timeout
+ * Connections held longer than the leak threshold are logged once with their acquiring thread, the stack trace of
+ * the acquirer is captured only while debug logging is on for this class
+ * A read only pool marks its connections read only, a hint the H2 driver accepts but does not enforce, so the
+ * pool only separates report readers from data entry. Under MVStore a select reads a committed snapshot and
+ * takes no row locks, whichever pool its connection comes from
+ */
+class SqlConnectionPool {
+    private static final Logger logger = Logger.getLogger(SqlConnectionPool.class);
+    private final JdbcConnectionPool dataSource;
+    private final SqlPoolConfig config;
+    private final boolean readOnly;
+    private final Deque<SqlConnection> idleQueue;
+    private final List<SqlConnection> connectionList;
+    private final Set<SqlConnection> activeSet;
+    private final long[] waitHistogram;
+    private int creatingCount;
+    private long acquireCount, timeoutCount, createFailCount, invalidCount, leakCount, totalWaitNanos, maxWaitNanos;
+
+    SqlConnectionPool(JdbcConnectionPool dataSource, SqlPoolConfig config, boolean readOnly) {
+        this.dataSource = dataSource;
+        this.config = config;
+        this.readOnly = readOnly;
+        dataSource.setMaxConnections(config.getMaxConnections());
+        dataSource.setLoginTimeout(config.getAcquireTimeout());
+        idleQueue = new ArrayDeque<>();
+        connectionList = new ArrayList<>();
+        activeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        waitHistogram = new long[SqlPoolMetrics.waitBucketCount()];
+    }
+
+    SqlConnection acquire() throws SQLException {
+        final long startTime = System.nanoTime();
+        checkLeaks(startTime);
+        final long deadline = startTime + TimeUnit.SECONDS.toNanos(config.getAcquireTimeout());
+        while (true) {
+            SqlConnection connection = awaitConnection(deadline);
+            if (connection == null) {
+                connection = createConnection();
+            } else if (connection.isClosed() || !isValid(connection)) {
+                discard(connection);
+                continue;
+            }
+            return onAcquired(connection, startTime);
+        }
+    }
+
+    void release(SqlConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        synchronized (this) {
+            activeSet.remove(connection);
+        }
+        try {
+            Connection jdbcConnection = connection.getConnection();
+            if (!jdbcConnection.getAutoCommit()) {
+                jdbcConnection.rollback();
+                jdbcConnection.setAutoCommit(true);
+            }
+            connection.setAcquired(0, null, null);
+            connection.setReleasedAt(System.nanoTime());
+            synchronized (this) {
+                idleQueue.addFirst(connection);
+                notify();
+            }
+        } catch (SQLException ex) {
+            discard(connection);
+        }
+    }
+
+    SqlPoolMetrics getMetrics() {
+        checkLeaks(System.nanoTime());
+        synchronized (this) {
+            long hits = 0, misses = 0;
+            for (SqlConnection connection : connectionList) {
+                hits += connection.getStatementCache().getHitCount();
+                misses += connection.getStatementCache().getMissCount();
+            }
+            return new SqlPoolMetrics(config.getMaxConnections(), activeSet.size(), idleQueue.size(),
+                    acquireCount, timeoutCount, createFailCount, invalidCount, leakCount, totalWaitNanos, maxWaitNanos,
+                    waitHistogram.clone(), hits, misses);
+        }
+    }
+
+    void dispose() {
+        List<SqlConnection> idleList;
+        synchronized (this) {
+            idleList = new ArrayList<>(idleQueue);
+            idleQueue.clear();
+            connectionList.removeAll(idleList);
+            if (!activeSet.isEmpty()) {
+                logger.warn("Disposing connection pool with " + activeSet.size() + " connection(s) in use");
+            }
+        }
+        idleList.forEach(SqlConnection::close);
+        dataSource.dispose();
+    }
+
+    /**
+     * Wait until a connection is idle or fewer than max connections are open
+     *
+     * @return idle connection, null when a slot is reserved for a new connection
+     */
+    private synchronized SqlConnection awaitConnection(long deadline) throws SQLException {
+        while (idleQueue.isEmpty() && config.getMaxConnections() <= connectionList.size() + creatingCount) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                timeoutCount += 1;
+                throw new SQLException("Connection acquire timed out after " + config.getAcquireTimeout()
+                        + " seconds, " + activeSet.size() + " of " + config.getMaxConnections() + " in use");
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Connection acquire interrupted", ex);
+            }
+        }
+        SqlConnection connection = idleQueue.pollFirst();
+        if (connection == null) {
+            creatingCount += 1;
+        }
+        return connection;
+    }
+
+    private SqlConnection createConnection() throws SQLException {
+        try {
+            Connection jdbcConnection = dataSource.getConnection();
+            if (readOnly) {
+                jdbcConnection.setReadOnly(true);
+            }
+            SqlConnection connection = new SqlConnection(jdbcConnection, config.getStatementCacheSize());
+            synchronized (this) {
+                creatingCount -= 1;
+                connectionList.add(connection);
+            }
+            return connection;
+        } catch (SQLException ex) {
+            synchronized (this) {
+                creatingCount -= 1;
+                createFailCount += 1;
+                notify();
+            }
+            logger.warn("Connection create failed, " + getMetrics());
+            throw ex;
+        }
+    }
+
+    /**
+     * Connections idle for less than the validation idle time are taken as valid without a check
+     */
+    private boolean isValid(SqlConnection connection) {
+        final long idleNanos = System.nanoTime() - connection.getReleasedAt();
+        if (!config.isValidateOnAcquire() || idleNanos < TimeUnit.SECONDS.toNanos(config.getValidationIdleTime())
+                || connection.isValid(config.getValidationTimeout())) {
+            return true;
+        }
+        synchronized (this) {
+            invalidCount += 1;
+        }
+        return false;
+    }
+
+    private SqlConnection onAcquired(SqlConnection connection, long startTime) {
+        final long acquiredAt = System.nanoTime(), waitNanos = acquiredAt - startTime;
+        Throwable acquiredTrace = 0 < config.getLeakThreshold() && logger.isDebugEnabled()
+                ? new Throwable("Connection acquired") : null;
+        synchronized (this) {
+            connection.setAcquired(acquiredAt, Thread.currentThread().getName(), acquiredTrace);
+            activeSet.add(connection);
+            acquireCount += 1;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+            waitHistogram[SqlPoolMetrics.waitBucket(waitNanos)] += 1;
+        }
+        return connection;
+    }
+
+    private void checkLeaks(long now) {
+        if (config.getLeakThreshold() <= 0) {
+            return;
+        }
+        final long thresholdNanos = config.getLeakThreshold() * 1000000000L;
+        List<SqlConnection> leakList = new ArrayList<>();
+        synchronized (this) {
+            for (SqlConnection connection : activeSet) {
+                if (!connection.isLeakReported() && thresholdNanos < now - connection.getAcquiredAt()) {
+                    connection.setLeakReported(true);
+                    leakList.add(connection);
+                }
+            }
+            leakCount += leakList.size();
+        }
+        for (SqlConnection connection : leakList) {
+            logger.warn("Connection not released within " + config.getLeakThreshold() + " seconds, acquired by "
+                    + connection.getAcquiredBy(), connection.getAcquiredTrace());
+        }
+    }
+
+    private void discard(SqlConnection connection) {
+        synchronized (this) {
+            connectionList.remove(connection);
+            activeSet.remove(connection);
+            notify();
+        }
+        connection.close();
+    }
+}
@@ -0,0 +1,77 @@
+package excel.accounting.db;
+
+/**
+ * Sql Database Config
+ * Cache size is in kilobytes and write delay in milliseconds, both are passed to the MVStore through the url
+ */
+public class SqlDatabaseConfig {
+    private SqlDatabaseMode mode = SqlDatabaseMode.Embedded;
+    private String host = "localhost", path = "~/test";
+    private int cacheSize = 65536, writeDelay = 500;
+    private boolean compress;
+
+    public SqlDatabaseMode getMode() {
+        return mode;
+    }
+
+    public void setMode(SqlDatabaseMode mode) {
+        this.mode = mode;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public int getWriteDelay() {
+        return writeDelay;
+    }
+
+    public void setWriteDelay(int writeDelay) {
+        this.writeDelay = writeDelay;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public String getUrl() {
+        StringBuilder builder = new StringBuilder("jdbc:h2:");
+        if (SqlDatabaseMode.Server.equals(mode)) {
+            builder.append("tcp://").append(host).append('/');
+        }
+        builder.append(path).append(";MV_STORE=TRUE");
+        builder.append(";CACHE_SIZE=").append(cacheSize);
+        builder.append(";WRITE_DELAY=").append(writeDelay);
+        if (compress) {
+            builder.append(";COMPRESS=TRUE");
+        }
+        if (SqlDatabaseMode.AutoServer.equals(mode)) {
+            builder.append(";AUTO_SERVER=TRUE");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package excel.accounting.db;
+
+/**
+ * Sql Database Mode
+ * Server connects over tcp to a separately started h2 server, Embedded opens the database file in process,
+ * AutoServer opens it in process and lets a second process connect through the first one
+ */
+public enum SqlDatabaseMode {
+    Server, Embedded, AutoServer
+}
@@ -0,0 +1,9 @@
+package excel.accounting.db;
+
+/**
+ * Enum with a stable code, stored by SqlEnumStorage.Code, codes are unique and between -128 and 127
+ */
+public interface SqlEnumCode {
+
+    int getCode();
+}
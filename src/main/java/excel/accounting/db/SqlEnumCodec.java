@@ -0,0 +1,90 @@
+package excel.accounting.db;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sql Enum Codec, one per enum column
+ * Stored values of every constant and the lookups back from name and code are built once, encode and decode
+ * are array and map reads. Names and codes are both decoded whatever the storage, so a column is readable
+ * while it is migrated. Unknown values decode to null
+ */
+final class SqlEnumCodec {
+    private static final int minCode = Byte.MIN_VALUE, maxCode = Byte.MAX_VALUE;
+    private final Class<?> type;
+    private final SqlEnumStorage storage;
+    private final Object[] storedValues;
+    private final Enum<?>[] codeTable;
+    private final Map<String, Enum<?>> nameMap;
+
+    SqlEnumCodec(Class<?> type, SqlEnumStorage storage) {
+        this.type = type;
+        this.storage = storage;
+        Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+        storedValues = new Object[constants.length];
+        codeTable = new Enum<?>[maxCode - minCode + 1];
+        nameMap = new HashMap<>();
+        for (Enum<?> constant : constants) {
+            int code = getCode(constant);
+            if (code < minCode || maxCode < code) {
+                if (isCompact()) {
+                    throw new IllegalArgumentException(type + " code out of tinyint range " + constant.name());
+                }
+            } else if (codeTable[code - minCode] != null) {
+                throw new IllegalArgumentException(type + " code is not unique " + constant.name());
+            } else {
+                codeTable[code - minCode] = constant;
+            }
+            nameMap.put(constant.name(), constant);
+            storedValues[constant.ordinal()] = SqlEnumStorage.Name.equals(storage) ? constant.name() : code;
+        }
+    }
+
+    private int getCode(Enum<?> constant) {
+        if (SqlEnumStorage.Code.equals(storage)) {
+            if (!(constant instanceof SqlEnumCode)) {
+                throw new IllegalArgumentException(type + " does not implement SqlEnumCode to store codes");
+            }
+            return ((SqlEnumCode) constant).getCode();
+        }
+        return constant.ordinal();
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    SqlEnumStorage getStorage() {
+        return storage;
+    }
+
+    boolean isCompact() {
+        return !SqlEnumStorage.Name.equals(storage);
+    }
+
+    /**
+     * @return constant name as String, or code as Integer for the compact storages
+     */
+    Object encode(Object constant) {
+        return constant == null ? null : storedValues[((Enum<?>) constant).ordinal()];
+    }
+
+    Object decode(Object value) {
+        if (value instanceof Number) {
+            int code = ((Number) value).intValue();
+            return code < minCode || maxCode < code ? null : codeTable[code - minCode];
+        }
+        return value == null ? null : nameMap.get(value.toString());
+    }
+
+    /**
+     * Constant name and stored value of every constant, for migrating the column between storages
+     */
+    Map<String, Object> getStoredValueMap() {
+        Map<String, Object> valueMap = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            valueMap.put(((Enum<?>) constant).name(), encode(constant));
+        }
+        return valueMap;
+    }
+}
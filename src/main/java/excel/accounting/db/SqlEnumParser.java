@@ -2,6 +2,8 @@ package excel.accounting.db;
 
 /**
  * Orm Enum Parser
+ * Stored enum values are decoded by the column codec, the parser is asked only for values the enum does not
+ * know and gives the constant to use instead, null to leave the field empty
  */
 public interface SqlEnumParser {
     <E> Object parseEnum(final Class<?> typeClass, final String value);
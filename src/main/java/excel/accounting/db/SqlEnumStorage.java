@@ -0,0 +1,10 @@
+package excel.accounting.db;
+
+/**
+ * Sql Enum Storage
+ * Name stores the constant name as varchar, Ordinal and Code store a tinyint, the ordinal of the constant
+ * or the code of an enum that implements SqlEnumCode
+ */
+public enum SqlEnumStorage {
+    Name, Ordinal, Code
+}
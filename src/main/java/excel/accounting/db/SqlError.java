@@ -5,7 +5,7 @@ import java.sql.SQLException;
 /**
  * Sql Error
  */
-interface SqlError {
+public interface SqlError {
     default void onSqlError(SqlQuery query, SQLException ex) {
     }
 }
@@ -1,6 +1,5 @@
 package excel.accounting.db;
 
-import org.apache.commons.beanutils.BeanUtils;
 import org.apache.log4j.Logger;
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.reflections.Reflections;
@@ -14,6 +13,7 @@ import java.util.stream.Collectors;
  * Sql Factory
  */
 public abstract class SqlFactory {
+    private static final String catalogClass = "SqlGeneratedCatalog";
     private static Logger logger;
 
     public static void setLogger(Logger logger) {
@@ -24,58 +24,143 @@ public abstract class SqlFactory {
         logger.info(value);
     }
 
-    public static H2Processor createH2Processor(String url, String user, String pass, String schema,
+    private static void warning(String value) {
+        if (logger != null) {
+            logger.warn(value);
+        }
+    }
+
+    public static H2Processor createH2Processor(String url, String user, String pass, SqlPoolConfig poolConfig,
+                                                String schema, String[] entityPackage, SqlEnumParser enumParser) {
+        return createH2Processor(url, user, pass, poolConfig, null, schema, entityPackage, enumParser);
+    }
+
+    /**
+     * @param reportPoolConfig pool for reports and exports, null to read reports from the main pool
+     */
+    public static H2Processor createH2Processor(String url, String user, String pass, SqlPoolConfig poolConfig,
+                                                SqlPoolConfig reportPoolConfig, String schema,
                                                 String[] entityPackage, SqlEnumParser enumParser) {
         H2Processor processor = new H2Processor();
         processor.setEnumParser(enumParser);
-        processor.setTableMap(SqlFactory.createSqlTableMap(schema, entityPackage));
-        processor.setConnectionPool(JdbcConnectionPool.create(url, user, pass));
+        processor.setTableMap(SqlFactory.createSqlTableMap(schema, enumParser, entityPackage));
+        processor.setResultCache(new SqlResultCache(getResultCacheRows(), getCachedTables(processor)));
+        processor.setConnectionPool(new SqlConnectionPool(JdbcConnectionPool.create(url, user, pass),
+                poolConfig == null ? new SqlPoolConfig() : poolConfig, false));
+        processor.setAsyncReader(new SqlAsyncReader(processor.getSqlReader(), "reader", getAsyncThreadCount(),
+                getAsyncQueueSize(), Thread.NORM_PRIORITY));
+        if (reportPoolConfig != null) {
+            processor.setReportPool(new SqlConnectionPool(JdbcConnectionPool.create(url, user, pass),
+                    reportPoolConfig, true));
+        }
+        processor.setReportAsyncReader(new SqlAsyncReader(processor.getReportReader(), "report",
+                reportPoolConfig == null ? 1 : reportPoolConfig.getMaxConnections(), getAsyncQueueSize(),
+                Thread.MIN_PRIORITY));
         return processor;
     }
 
-    private static SqlTableMap createSqlTableMap(String schema, String... packArray) {
-        SqlTableMap tableMap = new SqlTableMap(schema);
-        for (String pack : packArray) {
-            Reflections reflections = new Reflections(pack.trim());
-            Set<Class<?>> classes = reflections.getTypesAnnotatedWith(Table.class);
-            addTableClassMap(tableMap, classes);
+    private static int getResultCacheRows() {
+        return 50000;
+    }
+
+    private static List<String> getCachedTables(H2Processor processor) {
+        List<String> tableList = new ArrayList<>();
+        for (SqlTable table : processor.getSqlTableMap().values()) {
+            if (table.getType().isAnnotationPresent(CachedTable.class)) {
+                tableList.add(table.getName());
+            }
+        }
+        return tableList;
+    }
+
+    private static int getAsyncThreadCount() {
+        return 2;
+    }
+
+    private static int getAsyncQueueSize() {
+        return 64;
+    }
+
+    private static SqlTableMap createSqlTableMap(String schema, SqlEnumParser enumParser, String... packArray) {
+        SqlTableMap tableMap = loadCatalog(schema, packArray);
+        if (tableMap == null) {
+            tableMap = scanSqlTableMap(schema, packArray);
+        }
+        addReferences(tableMap.values());
+        for (SqlTable table : tableMap.values()) {
+            table.setRowMapper(new SqlRowMapper(table, enumParser));
+            table.setWritePlan(new SqlWritePlan(schema, table));
         }
-        addTableColumns(tableMap);
+        tableMap.freeze();
         return tableMap;
     }
 
-    private static void addTableClassMap(Map<Class<?>, SqlTable> tMap, Set<Class<?>> entityList) {
-        if (entityList != null && !entityList.isEmpty()) {
-            for (Class<?> clazz : entityList) {
-                tMap.put(clazz, null);
+    /**
+     * Table map of the catalog generated by SqlTableProcessor, null when it is absent, misses a package or names
+     * a class or field the class path no longer has. The processor lists the whole entity packages at build time,
+     * so only the listed classes are checked here while they are registered
+     */
+    private static SqlTableMap loadCatalog(String schema, String... packArray) {
+        SqlCatalog catalog;
+        try {
+            Class<?> type = Class.forName(SqlFactory.class.getPackage().getName() + "." + catalogClass);
+            catalog = (SqlCatalog) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+        List<String> packageList = Arrays.asList(catalog.getPackages());
+        for (String pack : packArray) {
+            if (!packageList.contains(pack.trim())) {
+                return null;
             }
         }
+        try {
+            SqlCatalogBuilder builder = new SqlCatalogBuilder(schema);
+            catalog.register(builder);
+            return builder.build();
+        } catch (IllegalStateException | LinkageError ex) {
+            warning("Generated catalog is stale, scanning the entity packages, " + ex);
+            return null;
+        }
     }
 
-    private static void addTableColumns(SqlTableMap tableMap) {
-        for (Class<?> entity : tableMap.keySet()) {
+    private static SqlTableMap scanSqlTableMap(String schema, String... packArray) {
+        SqlTableMap tableMap = new SqlTableMap(schema);
+        Set<Class<?>> classSet = new LinkedHashSet<>();
+        for (String pack : packArray) {
+            Reflections reflections = new Reflections(pack.trim());
+            classSet.addAll(reflections.getTypesAnnotatedWith(Table.class));
+        }
+        addTableColumns(tableMap, classSet);
+        return tableMap;
+    }
+
+    private static void addTableColumns(SqlTableMap tableMap, Set<Class<?>> classSet) {
+        for (Class<?> entity : classSet) {
             String tableName = findTableName(entity);
             if (tableName == null) {
                 continue;
             }
-            List<Field> columnList = new ArrayList<>();
+            List<Field> fieldList = new ArrayList<>();
             SqlTable sqlTable = new SqlTable(tableName, entity);
-            sqlTable.setFieldList(columnList);
-            addFields(columnList, entity);
+            addFields(fieldList, entity);
+            sqlTable.setFieldList(fieldList);
             tableMap.put(sqlTable.getType(), sqlTable);
         }
         Collection<SqlTable> tableList = tableMap.values();
         for (SqlTable table : tableList) {
-            table.addAll(createColumns(table));
+            table.setColumns(createColumns(table));
         }
         for (SqlTable table : tableList) {
             createJoinColumn(table, tableList);
         }
         for (SqlTable table : tableList) {
-            List<SqlColumn> sortedList = getSortedColumnList(table);
-            table.clear();
-            table.addAll(sortedList);
+            table.setColumns(getSortedColumnList(table));
+            table.setIndexList(createIndexList(table));
         }
+    }
+
+    private static void addReferences(Collection<SqlTable> tableList) {
         List<SqlReference> refList = new ArrayList<>();
         for (SqlTable table : tableList) {
             table.stream().filter(column -> column.getJoinTable() != null).forEach(column -> {
@@ -130,7 +215,6 @@ public abstract class SqlFactory {
 
     private static List<SqlColumn> createColumns(SqlTable sqlTable) {
         List<SqlColumn> columnList = new ArrayList<>();
-        sqlTable.addAll(columnList);
         for (Field field : sqlTable.getFieldList()) {
             Column column = field.getAnnotation(Column.class);
             SqlColumn sqlColumn = null;
@@ -169,6 +253,7 @@ public abstract class SqlFactory {
     }
 
     private static void createJoinColumn(final SqlTable sqlTable, final Collection<SqlTable> tableList) {
+        List<SqlColumn> columnList = new ArrayList<>(sqlTable);
         for (Field field : sqlTable.getFieldList()) {
             JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
             if (joinColumn != null) {
@@ -180,9 +265,10 @@ public abstract class SqlFactory {
                 SqlColumn sqlColumn = createJoinColumn(field, joinColumn);
                 sqlColumn.setJoinTable(joinTable);
                 sqlColumn.setLength(joinTable.getPrimaryColumn().getLength());
-                sqlTable.add(sqlColumn);
+                columnList.add(sqlColumn);
             }
         }
+        sqlTable.setColumns(columnList);
     }
 
     private static SqlColumn createJoinColumn(Field field, JoinColumn joinColumn) {
@@ -205,25 +291,76 @@ public abstract class SqlFactory {
                 Collections.addAll(columnList, columnIndex.columns());
             }
         }
+        Map<String, SqlColumn> fieldColumnMap = new HashMap<>();
+        for (SqlColumn sqlColumn : sqlTable) {
+            if (sqlColumn.getFieldName() != null) {
+                fieldColumnMap.putIfAbsent(sqlColumn.getFieldName(), sqlColumn);
+            }
+        }
+        Set<SqlColumn> orderSet = Collections.newSetFromMap(new IdentityHashMap<>());
         List<SqlColumn> orderList = new ArrayList<>();
-        List<SqlColumn> unOrderList = new ArrayList<>();
         for (String column : columnList) {
-            for (SqlColumn sqlColumn : sqlTable) {
-                if (column.equals(sqlColumn.getFieldName())) {
-                    orderList.add(sqlColumn);
-                    break;
-                }
+            SqlColumn sqlColumn = fieldColumnMap.get(column);
+            if (sqlColumn != null && orderSet.add(sqlColumn)) {
+                orderList.add(sqlColumn);
             }
         }
         for (SqlColumn sqlColumn : sqlTable) {
-            if (!orderList.contains(sqlColumn)) {
-                unOrderList.add(sqlColumn);
+            if (orderSet.add(sqlColumn)) {
+                orderList.add(sqlColumn);
             }
         }
-        orderList.addAll(unOrderList);
         return orderList;
     }
 
+    private static List<SqlIndex> createIndexList(SqlTable sqlTable) {
+        Map<String, SqlIndex> indexMap = new LinkedHashMap<>();
+        List<Class<?>> classList = new ArrayList<>();
+        classList.add(sqlTable.getType());
+        findSuperClass(sqlTable.getType(), classList);
+        for (Class<?> cls : classList) {
+            for (TableIndex tableIndex : cls.getAnnotationsByType(TableIndex.class)) {
+                addIndex(indexMap, sqlTable, tableIndex, new ArrayList<>());
+            }
+        }
+        for (Field field : sqlTable.getFieldList()) {
+            for (TableIndex tableIndex : field.getAnnotationsByType(TableIndex.class)) {
+                List<String> fieldList = new ArrayList<>();
+                fieldList.add(field.getName());
+                addIndex(indexMap, sqlTable, tableIndex, fieldList);
+            }
+        }
+        return new ArrayList<>(indexMap.values());
+    }
+
+    private static void addIndex(Map<String, SqlIndex> indexMap, SqlTable sqlTable, TableIndex tableIndex,
+                                 List<String> fieldList) {
+        Collections.addAll(fieldList, tableIndex.columns());
+        if (fieldList.isEmpty()) {
+            throw new IllegalArgumentException(sqlTable.getType() + " table index columns missing");
+        }
+        List<SqlColumn> columnList = new ArrayList<>();
+        StringBuilder name = new StringBuilder(tableIndex.unique() ? "uk_" : "idx_").append(sqlTable.getName());
+        for (String fieldName : fieldList) {
+            SqlColumn sqlColumn = findColumn(sqlTable, fieldName);
+            if (sqlColumn == null) {
+                throw new IllegalArgumentException(sqlTable.getType() + " table index column not found " + fieldName);
+            }
+            columnList.add(sqlColumn);
+            name.append("_").append(sqlColumn.getName());
+        }
+        indexMap.put(name.toString(), new SqlIndex(name.toString(), columnList, tableIndex.unique()));
+    }
+
+    private static SqlColumn findColumn(SqlTable sqlTable, String fieldName) {
+        for (SqlColumn sqlColumn : sqlTable) {
+            if (fieldName.equals(sqlColumn.getFieldName()) || fieldName.equals(sqlColumn.getName())) {
+                return sqlColumn;
+            }
+        }
+        return null;
+    }
+
     private static void findSuperClass(Class<?> cls, List<Class<?>> classList) {
         Class<?> parentClass = cls.getSuperclass();
         if (parentClass != null) {
@@ -238,34 +375,16 @@ public abstract class SqlFactory {
         if (table == null) {
             return new ArrayList<T>();
         }
-        List<T> resultList = new ArrayList<>();
+        SqlRowMapper rowMapper = table.getRowMapper();
+        int[] binding = rowMapper.bind(dataResult.getMetaData());
+        List<T> resultList = new ArrayList<>(dataResult.getObjectsList().size());
         for (Object[] data : dataResult.getObjectsList()) {
-            T result = (T) instance(table.getType());
-            int index = 0;
-            for (Object value : data) {
-                String columnName = dataResult.getMetaData()[index].getColumnName();
-                String fieldName = table.getColumnFieldMap().get(columnName);
-                Class<?> enumClass = table.getEnumClass(fieldName);
-                if (enumClass != null) {
-                    value = processor.enumParser().parseEnum(enumClass, (String) value);
-                }
-                copyProperty(result, fieldName, value);
-                index += 1;
-            }
-            resultList.add(result);
+            resultList.add((T) rowMapper.map(binding, data));
         }
         return resultList;
     }
 
-    private static void copyProperty(Object bean, String name, Object value) {
-        try {
-            BeanUtils.copyProperty(bean, name, value);
-        } catch (Exception ex) {
-            // ignore
-        }
-    }
-
-    private static SqlTable getValidOrmTable(SqlTableMap tableMap, SqlMetaData[] metaDataArray) {
+    static SqlTable getValidOrmTable(SqlTableMap tableMap, SqlMetaData[] metaDataArray) {
         SqlTable table = tableMap.getSqlTable(metaDataArray[0].getTableName());
         if (table != null) {
             for (SqlMetaData metaData : metaDataArray) {
@@ -276,13 +395,4 @@ public abstract class SqlFactory {
         }
         return table;
     }
-
-    private static Object instance(Class<?> ins) {
-        try {
-            return ins.newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
 }
@@ -0,0 +1,30 @@
+package excel.accounting.db;
+
+import java.util.List;
+
+/**
+ * Sql Index, secondary index of one table
+ */
+class SqlIndex {
+    private final String name;
+    private final List<SqlColumn> columnList;
+    private final boolean unique;
+
+    SqlIndex(String name, List<SqlColumn> columnList, boolean unique) {
+        this.name = name;
+        this.columnList = columnList;
+        this.unique = unique;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<SqlColumn> getColumnList() {
+        return columnList;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+}
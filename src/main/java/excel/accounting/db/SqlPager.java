@@ -0,0 +1,112 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sql Pager, keyset pagination over one entity table
+ * Each page seeks past the key of the previous page's last row instead of skipping rows with offset,
+ * so deep pages cost the same as the first one. Key columns must be unique together and not null
+ */
+public class SqlPager<T> {
+    private final SqlProcessor processor;
+    private final SqlReader reader;
+    private final SqlTable table;
+    private final String[] keyColumns;
+    private final int[] keyOrdinals;
+    private final int pageSize;
+    private final List<String> whereColumns;
+    private final List<Object> whereParameters;
+    private boolean descending, lastPage;
+    private Object[] lastKeys;
+
+    SqlPager(SqlProcessor processor, SqlReader reader, SqlTable table, int pageSize, String... keyColumns) {
+        this.processor = processor;
+        this.reader = reader;
+        this.table = table;
+        this.pageSize = pageSize;
+        this.keyColumns = keyColumns;
+        keyOrdinals = new int[keyColumns.length];
+        for (int index = 0; index < keyColumns.length; index++) {
+            keyOrdinals[index] = table.ordinalOf(keyColumns[index]);
+            if (keyOrdinals[index] < 0) {
+                throw new IllegalArgumentException(table.getName() + " page key column not found "
+                        + keyColumns[index]);
+            }
+        }
+        whereColumns = new ArrayList<>();
+        whereParameters = new ArrayList<>();
+    }
+
+    public SqlPager<T> where(String column, Object parameter) {
+        whereColumns.add(column);
+        whereParameters.add(parameter);
+        return SqlPager.this;
+    }
+
+    public SqlPager<T> descending() {
+        descending = true;
+        return SqlPager.this;
+    }
+
+    /**
+     * Continue after the given key, a page of a table view can be restored from its last row
+     */
+    public void seek(Object... keys) {
+        lastKeys = keys;
+        lastPage = false;
+    }
+
+    public void reset() {
+        seek((Object[]) null);
+    }
+
+    public boolean hasNext() {
+        return !lastPage;
+    }
+
+    public Object[] getLastKeys() {
+        return lastKeys;
+    }
+
+    public List<T> next() throws SQLException {
+        if (lastPage) {
+            return new ArrayList<>();
+        }
+        QueryBuilder builder = createBuilder(reader.selectBuilder(table.getType()));
+        if (descending) {
+            builder.seekBefore(keyColumns, lastKeys);
+        } else {
+            builder.seekAfter(keyColumns, lastKeys);
+        }
+        List<T> pageList = reader.entityList(builder.limit(pageSize).getSqlQuery());
+        lastPage = pageList.size() < pageSize;
+        if (!pageList.isEmpty()) {
+            lastKeys = getKeys(pageList.get(pageList.size() - 1));
+        }
+        return pageList;
+    }
+
+    public long count() throws SQLException {
+        QueryBuilder builder = createBuilder(processor.createQueryBuilder().selectCount(table.getName()));
+        return reader.longValue(builder.getSqlQuery());
+    }
+
+    private QueryBuilder createBuilder(QueryBuilder builder) {
+        for (int index = 0; index < whereColumns.size(); index++) {
+            builder.where(whereColumns.get(index), whereParameters.get(index));
+        }
+        return builder;
+    }
+
+    private Object[] getKeys(Object entity) {
+        Object[] keys = new Object[keyOrdinals.length];
+        for (int index = 0; index < keys.length; index++) {
+            Object value = table.getWritePlan().getValue(keyOrdinals[index], entity);
+            SqlEnumCodec enumCodec = table.getEnumCodec(keyOrdinals[index]);
+            keys[index] = enumCodec == null ? value : enumCodec.encode(value);
+        }
+        return keys;
+    }
+}
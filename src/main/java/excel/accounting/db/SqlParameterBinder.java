@@ -0,0 +1,11 @@
+package excel.accounting.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sql Parameter Binder, entity field value to jdbc parameter
+ */
+interface SqlParameterBinder {
+    void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+}
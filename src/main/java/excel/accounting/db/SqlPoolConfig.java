@@ -0,0 +1,69 @@
+package excel.accounting.db;
+
+/**
+ * Sql Pool Config
+ * Timeouts are in seconds, a leak threshold of zero turns leak detection off
+ * Validation on acquire checks only connections idle for at least the validation idle time, recently released
+ * ones are handed out without the round trip
+ */
+public class SqlPoolConfig {
+    private int maxConnections = 10, acquireTimeout = 30, validationTimeout = 2;
+    private int statementCacheSize = 64, leakThreshold = 60, validationIdleTime = 30;
+    private boolean validateOnAcquire = true;
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public void setAcquireTimeout(int acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public int getValidationIdleTime() {
+        return validationIdleTime;
+    }
+
+    public void setValidationIdleTime(int validationIdleTime) {
+        this.validationIdleTime = validationIdleTime;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getLeakThreshold() {
+        return leakThreshold;
+    }
+
+    public void setLeakThreshold(int leakThreshold) {
+        this.leakThreshold = leakThreshold;
+    }
+
+    public boolean isValidateOnAcquire() {
+        return validateOnAcquire;
+    }
+
+    public void setValidateOnAcquire(boolean validateOnAcquire) {
+        this.validateOnAcquire = validateOnAcquire;
+    }
+}
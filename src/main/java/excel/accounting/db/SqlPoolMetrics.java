@@ -0,0 +1,117 @@
+package excel.accounting.db;
+
+import java.util.Arrays;
+
+/**
+ * Sql Pool Metrics, snapshot of the connection pool state
+ * Acquire wait histogram counts are bucketed by getWaitBounds in milliseconds, the last bucket holds the slower ones
+ */
+public class SqlPoolMetrics {
+    private static final long[] waitBounds = {1, 5, 10, 50, 100, 500, 1000, 5000};
+    private final int maxConnections, activeCount, idleCount;
+    private final long acquireCount, timeoutCount, createFailCount, invalidCount, leakCount;
+    private final long totalWaitNanos, maxWaitNanos, statementCacheHits, statementCacheMisses;
+    private final long[] waitHistogram;
+
+    SqlPoolMetrics(int maxConnections, int activeCount, int idleCount, long acquireCount, long timeoutCount,
+                   long createFailCount, long invalidCount, long leakCount, long totalWaitNanos, long maxWaitNanos,
+                   long[] waitHistogram, long statementCacheHits, long statementCacheMisses) {
+        this.maxConnections = maxConnections;
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.acquireCount = acquireCount;
+        this.timeoutCount = timeoutCount;
+        this.createFailCount = createFailCount;
+        this.invalidCount = invalidCount;
+        this.leakCount = leakCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.waitHistogram = waitHistogram;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    static int waitBucket(long waitNanos) {
+        long millis = waitNanos / 1000000L;
+        for (int index = 0; index < waitBounds.length; index++) {
+            if (millis < waitBounds[index]) {
+                return index;
+            }
+        }
+        return waitBounds.length;
+    }
+
+    static int waitBucketCount() {
+        return waitBounds.length + 1;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getIdleCount() {
+        return idleCount;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return connections the database refused to open, not counted as timeouts
+     */
+    public long getCreateFailCount() {
+        return createFailCount;
+    }
+
+    public long getInvalidCount() {
+        return invalidCount;
+    }
+
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return acquireCount == 0 ? 0 : totalWaitNanos / 1000000d / acquireCount;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1000000d;
+    }
+
+    public long[] getWaitBounds() {
+        return waitBounds.clone();
+    }
+
+    public long[] getWaitHistogram() {
+        return waitHistogram.clone();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + activeCount + ", idle=" + idleCount + ", max=" + maxConnections
+                + ", acquired=" + acquireCount + ", timeouts=" + timeoutCount + ", createFailed=" + createFailCount
+                + ", invalid=" + invalidCount
+                + ", leaks=" + leakCount + ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis())
+                + ", maxWaitMs=" + String.format("%.3f", getMaxWaitMillis())
+                + ", waitHistogram=" + Arrays.toString(waitHistogram)
+                + ", statementCache=" + statementCacheHits + "/" + statementCacheMisses;
+    }
+}
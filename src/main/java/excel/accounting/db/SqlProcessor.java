@@ -1,5 +1,6 @@
 package excel.accounting.db;
 
+import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -13,8 +14,31 @@ public interface SqlProcessor {
 
     SqlReader getSqlReader();
 
+    SqlAsyncReader getSqlAsyncReader();
+
+    /**
+     * Reader on the report pool, for exports and reports that should not take connections from data entry.
+     * Its reads bypass the result cache, without a report pool it reads on the main pool
+     */
+    SqlReader getReportReader();
+
+    /**
+     * Async reader over the report reader, its workers run below normal thread priority
+     */
+    SqlAsyncReader getReportAsyncReader();
+
     SqlTransaction getSqlTransaction();
 
+    /**
+     * Unit of work of the calling thread, a new one holds a pooled connection until it is closed
+     */
+    SqlUnitOfWork openUnitOfWork() throws SQLException;
+
+    /**
+     * @return open unit of work of the calling thread, null when there is none
+     */
+    SqlUnitOfWork getUnitOfWork();
+
     SqlTable getSqlTable(Class<?> tableClass);
 
     SqlTableMap getSqlTableMap();
@@ -28,4 +52,30 @@ public interface SqlProcessor {
     List<SqlQuery> createTableQueries();
 
     List<SqlQuery> alterTableQueries();
+
+    /**
+     * Apply the schema difference since the last recorded version, returns the number of ddl statements executed
+     */
+    int migrateSchema() throws SQLException;
+
+    /**
+     * Explain a filter query per index and foreign key column, returns the queries that scan the whole table
+     */
+    List<String> findTableScans() throws SQLException;
+
+    SqlPoolMetrics getPoolMetrics();
+
+    /**
+     * @return null when no report pool is configured
+     */
+    SqlPoolMetrics getReportPoolMetrics();
+
+    SqlCacheStats getResultCacheStats();
+
+    /**
+     * Drop all cached results, for data changed outside of this processor
+     */
+    void clearResultCache();
+
+    void close();
 }
@@ -0,0 +1,111 @@
+package excel.accounting.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sql Projection, the declared columns of one entity table read into read only rows
+ * Columns are declared by field or column name, the primary column is always read first so a row can load
+ * its full entity by code. Values are converted as for entities, enums decoded and dates copied
+ */
+public class SqlProjection {
+    private final SqlTable table;
+    private final int[] ordinals;
+    private final String[] columnNames;
+    private final SqlValueConverter[] converters;
+    private final Map<String, Integer> indexMap;
+
+    SqlProjection(SqlTable table, String... names) {
+        this.table = table;
+        List<Integer> ordinalList = new ArrayList<>();
+        ordinalList.add(table.getPrimaryColumn().getColIndex());
+        for (String name : names) {
+            int ordinal = ordinalOf(name);
+            if (ordinal < 0) {
+                throw new IllegalArgumentException(table.getType() + " projection column not found " + name);
+            } else if (!ordinalList.contains(ordinal)) {
+                ordinalList.add(ordinal);
+            }
+        }
+        ordinals = new int[ordinalList.size()];
+        columnNames = new String[ordinals.length];
+        converters = new SqlValueConverter[ordinals.length];
+        Map<String, Integer> nameMap = new HashMap<>();
+        for (int index = 0; index < ordinals.length; index++) {
+            ordinals[index] = ordinalList.get(index);
+            SqlColumn column = table.get(ordinals[index]);
+            columnNames[index] = column.getName();
+            converters[index] = table.getRowMapper().getConverter(ordinals[index]);
+            nameMap.put(column.getName(), index);
+            if (column.getFieldName() != null) {
+                nameMap.put(column.getFieldName(), index);
+            }
+        }
+        indexMap = Collections.unmodifiableMap(nameMap);
+    }
+
+    private int ordinalOf(String name) {
+        int ordinal = table.ordinalOf(name);
+        if (ordinal < 0) {
+            for (SqlColumn column : table) {
+                if (name.equals(column.getFieldName())) {
+                    return column.getColIndex();
+                }
+            }
+        }
+        return ordinal;
+    }
+
+    public Class<?> getType() {
+        return table.getType();
+    }
+
+    public String getTableName() {
+        return table.getName();
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * @return index of the column in the rows by field or column name, -1 when it is not projected
+     */
+    public int indexOf(String name) {
+        Integer index = indexMap.get(name);
+        return index == null ? -1 : index;
+    }
+
+    List<SqlRow> toRowList(SqlMetaDataResult dataResult) {
+        SqlMetaData[] metaData = dataResult.getMetaData();
+        int[] binding = new int[metaData.length];
+        for (int index = 0; index < metaData.length; index++) {
+            binding[index] = metaData[index].getTableName().equalsIgnoreCase(table.getName())
+                    ? indexOf(metaData[index].getColumnName()) : -1;
+        }
+        List<SqlRow> rowList = new ArrayList<>(dataResult.getObjectsList().size());
+        for (Object[] data : dataResult.getObjectsList()) {
+            rowList.add(toRow(binding, data));
+        }
+        return rowList;
+    }
+
+    private SqlRow toRow(int[] binding, Object[] data) {
+        Object[] values = new Object[ordinals.length];
+        for (int index = 0; index < binding.length; index++) {
+            final int rowIndex = binding[index];
+            if (0 <= rowIndex && data[index] != null) {
+                SqlValueConverter converter = converters[rowIndex];
+                values[rowIndex] = converter == null ? data[index] : converter.convert(data[index]);
+            }
+        }
+        return new SqlRow(this, values);
+    }
+}
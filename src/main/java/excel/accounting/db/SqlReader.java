@@ -2,7 +2,9 @@ package excel.accounting.db;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Sql Reader
@@ -19,6 +21,19 @@ public interface SqlReader {
 
     SqlMetaDataResult sqlMetaDataResult(SqlQuery query) throws SQLException;
 
+    long forEachRow(SqlQuery query, int fetchSize, SqlRowHandler<Object[]> handler) throws SQLException;
+
+    <T> long forEachEntity(SqlQuery query, int fetchSize, SqlRowHandler<T> handler) throws SQLException;
+
+    <T> List<T> entityList(SqlQuery query) throws SQLException;
+
+    /**
+     * @param keyColumns seek key of the pages, the primary column when empty
+     */
+    <T> SqlPager<T> pager(Class<?> entityClass, int pageSize, String... keyColumns);
+
+    SqlColumnarReader columnar(SqlQuery query);
+
     String textValue(SqlQuery query) throws SQLException;
 
     String[] textArray(SqlQuery query) throws SQLException;
@@ -49,5 +64,24 @@ public interface SqlReader {
 
     Object getUsedReference(Class<?> entityClass, String code) throws SQLException;
 
+    /**
+     * Codes of the entity used by other tables, one union all query per chunk of codes over every referencing table
+     *
+     * @return referencing table names by used code, unused codes are absent
+     */
+    Map<String, List<String>> findUsedReferences(Class<?> entityClass, Collection<String> codes) throws SQLException;
+
     H2QueryBuilder selectBuilder(Class<?> tableClass);
+
+    /**
+     * @param names field or column names, the primary column is always included
+     */
+    SqlProjection projection(Class<?> entityClass, String... names);
+
+    /**
+     * Select of the projected columns only
+     */
+    H2QueryBuilder selectBuilder(SqlProjection projection);
+
+    List<SqlRow> rowList(SqlProjection projection, SqlQuery query) throws SQLException;
 }
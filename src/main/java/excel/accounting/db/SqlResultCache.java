@@ -0,0 +1,206 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sql Result Cache
+ * Only results read entirely from tables marked CachedTable are kept, other queries go straight to the database
+ * Results are keyed by result kind, sql and parameters and tagged with the tables named in the sql
+ * The cache is bounded by the total rows held, least recently used entries are evicted first and a result larger
+ * than a quarter of the bound is never stored
+ * A committed write drops every entry tagged with its table, a write of unknown shape (ddl) drops all entries
+ * Loads racing with an invalidation are returned but not stored, so a stale result never outlives the commit
+ */
+class SqlResultCache {
+    private static final Pattern readPattern = Pattern.compile("(?i)\\b(?:from|join)\\s+([\\w.\"]+)");
+    private static final Pattern writePattern =
+            Pattern.compile("(?i)^\\s*(?:insert\\s+into|merge\\s+into|update|delete\\s+from)\\s+([\\w.\"]+)");
+    private final int maxRows;
+    private final Set<String> cachedTables;
+    private final LinkedHashMap<CacheKey, CacheEntry> entryMap;
+    private long version, rowCount, hitCount, missCount, bypassCount, invalidationCount;
+
+    /**
+     * @param cachedTables names of the tables whose results may be kept
+     */
+    SqlResultCache(int maxRows, Collection<String> cachedTables) {
+        this.maxRows = maxRows;
+        this.cachedTables = new HashSet<>();
+        for (String table : cachedTables) {
+            this.cachedTables.add(table.toLowerCase());
+        }
+        entryMap = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T read(String kind, SqlQuery sql, SqlResultLoader<T> loader, UnaryOperator<T> copier) throws SQLException {
+        final Set<String> tables = maxRows <= 0 ? Collections.emptySet() : readTables(sql.toString());
+        if (tables.isEmpty() || !cachedTables.containsAll(tables)) {
+            synchronized (this) {
+                bypassCount += 1;
+            }
+            return loader.load();
+        }
+        final CacheKey key = new CacheKey(kind, sql.toString(), sql.getParameterList());
+        final long loadVersion;
+        synchronized (this) {
+            CacheEntry entry = entryMap.get(key);
+            if (entry != null) {
+                hitCount += 1;
+                return copier.apply((T) entry.value);
+            }
+            missCount += 1;
+            loadVersion = version;
+        }
+        T value = loader.load();
+        final int valueRows = rowCount(value);
+        synchronized (this) {
+            if (loadVersion == version && valueRows <= maxRows / 4) {
+                remove(entryMap.put(key, new CacheEntry(tables, value, valueRows)));
+                rowCount += valueRows;
+                evict();
+            }
+        }
+        return copier.apply(value);
+    }
+
+    private void evict() {
+        Iterator<CacheEntry> iterator = entryMap.values().iterator();
+        while (maxRows < rowCount && iterator.hasNext()) {
+            remove(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private void remove(CacheEntry entry) {
+        if (entry != null) {
+            rowCount -= entry.rows;
+        }
+    }
+
+    private static int rowCount(Object value) {
+        if (value instanceof SqlMetaDataResult) {
+            return Math.max(1, ((SqlMetaDataResult) value).getObjectsList().size());
+        } else if (value instanceof Collection) {
+            return Math.max(1, ((Collection<?>) value).size());
+        }
+        return 1;
+    }
+
+    /**
+     * Invalidate the entries read from the tables written by the given sql
+     */
+    void invalidate(Collection<String> writeQueries) {
+        if (maxRows <= 0 || writeQueries.isEmpty()) {
+            return;
+        }
+        Set<String> tables = new HashSet<>();
+        for (String query : writeQueries) {
+            String table = writeTable(query);
+            if (table == null) {
+                clear();
+                return;
+            }
+            tables.add(table);
+        }
+        invalidateTables(tables);
+    }
+
+    /**
+     * Invalidate the entries read from the table, for writes that have no sql text of their own
+     */
+    void invalidateTable(String table) {
+        if (0 < maxRows) {
+            invalidateTables(Collections.singleton(tableName(table)));
+        }
+    }
+
+    private void invalidateTables(Set<String> tables) {
+        synchronized (this) {
+            version += 1;
+            Iterator<CacheEntry> iterator = entryMap.values().iterator();
+            while (iterator.hasNext()) {
+                CacheEntry entry = iterator.next();
+                if (!Collections.disjoint(entry.tables, tables)) {
+                    remove(entry);
+                    iterator.remove();
+                    invalidationCount += 1;
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        version += 1;
+        invalidationCount += entryMap.size();
+        entryMap.clear();
+        rowCount = 0;
+    }
+
+    synchronized SqlCacheStats getStats() {
+        return new SqlCacheStats(entryMap.size(), rowCount, maxRows, hitCount, missCount, bypassCount,
+                invalidationCount);
+    }
+
+    private static Set<String> readTables(String query) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = readPattern.matcher(query);
+        while (matcher.find()) {
+            tables.add(tableName(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    private static String writeTable(String query) {
+        Matcher matcher = writePattern.matcher(query);
+        return matcher.find() ? tableName(matcher.group(1)) : null;
+    }
+
+    private static String tableName(String qualifiedName) {
+        String name = qualifiedName.replace("\"", "");
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    private static class CacheKey {
+        private final String kind, sql;
+        private final List<Object> parameterList;
+        private final int hashCode;
+
+        CacheKey(String kind, String sql, List<Object> parameterList) {
+            this.kind = kind;
+            this.sql = sql;
+            this.parameterList = new ArrayList<>(parameterList);
+            hashCode = Objects.hash(kind, sql, this.parameterList);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return kind.equals(other.kind) && sql.equals(other.sql) && parameterList.equals(other.parameterList);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CacheEntry {
+        private final Set<String> tables;
+        private final Object value;
+        private final int rows;
+
+        CacheEntry(Set<String> tables, Object value, int rows) {
+            this.tables = tables;
+            this.value = value;
+            this.rows = rows;
+        }
+    }
+}
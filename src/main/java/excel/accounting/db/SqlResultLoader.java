@@ -0,0 +1,11 @@
+package excel.accounting.db;
+
+import java.sql.SQLException;
+
+/**
+ * Sql Result Loader, reads a result from the database on a cache miss
+ */
+interface SqlResultLoader<T> {
+
+    T load() throws SQLException;
+}
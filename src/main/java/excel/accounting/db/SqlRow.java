@@ -0,0 +1,51 @@
+package excel.accounting.db;
+
+import java.util.Arrays;
+
+/**
+ * Sql Row, read only values of a projection
+ */
+public final class SqlRow {
+    private final SqlProjection projection;
+    private final Object[] values;
+
+    SqlRow(SqlProjection projection, Object[] values) {
+        this.projection = projection;
+        this.values = values;
+    }
+
+    public SqlProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return primary column value, used to load the full entity
+     */
+    public Object getPrimaryKey() {
+        return values[0];
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param name field or column name of the projection
+     */
+    public Object get(String name) {
+        int index = projection.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(projection.getTableName() + " column is not projected " + name);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public String toString() {
+        return projection.getTableName() + Arrays.toString(values);
+    }
+}
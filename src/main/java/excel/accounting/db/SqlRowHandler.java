@@ -0,0 +1,11 @@
+package excel.accounting.db;
+
+/**
+ * Sql Row Handler
+ */
+public interface SqlRowHandler<T> {
+    /**
+     * @return false to stop reading further rows
+     */
+    boolean onSqlRow(T row);
+}
@@ -0,0 +1,24 @@
+package excel.accounting.db;
+
+/**
+ * Sql Row Image, column values of an entity captured at one moment
+ * An update written from the image binds these values and keeps them as the snapshot, edits made to the entity
+ * after the capture stay dirty
+ */
+public final class SqlRowImage {
+    private final Object row;
+    private final Object[] values;
+
+    SqlRowImage(Object row, Object[] values) {
+        this.row = row;
+        this.values = values;
+    }
+
+    public Object getRow() {
+        return row;
+    }
+
+    Object[] getValues() {
+        return values;
+    }
+}
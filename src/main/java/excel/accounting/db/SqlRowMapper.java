@@ -0,0 +1,140 @@
+package excel.accounting.db;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Sql Row Mapper, compiled once per table
+ * Result columns are bound to table column ordinals once per query, then every row is copied through
+ * field setter handles and type specific converters
+ */
+class SqlRowMapper {
+    private static final MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+    private final SqlTable table;
+    private final MethodHandle constructor;
+    private final MethodHandle[] setters;
+    private final SqlValueConverter[] converters;
+    private final boolean[] primitives;
+
+    SqlRowMapper(SqlTable table, SqlEnumParser enumParser) {
+        this.table = table;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final int size = table.size();
+        setters = new MethodHandle[size];
+        converters = new SqlValueConverter[size];
+        primitives = new boolean[size];
+        try {
+            constructor = lookup.findConstructor(table.getType(), MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                Field field = table.getField(ordinal);
+                if (field == null) {
+                    continue;
+                }
+                field.setAccessible(true);
+                setters[ordinal] = lookup.unreflectSetter(field).asType(setterType);
+                converters[ordinal] = createConverter(field.getType(), table.getEnumCodec(ordinal), enumParser);
+                primitives[ordinal] = field.getType().isPrimitive();
+            }
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new IllegalArgumentException(table.getType() + " row mapper is not created", ex);
+        }
+    }
+
+    /**
+     * @return table column ordinal of each result column, -1 when the result column is not mapped
+     */
+    int[] bind(SqlMetaData[] metaData) {
+        int[] binding = new int[metaData.length];
+        for (int index = 0; index < metaData.length; index++) {
+            binding[index] = table.ordinalOf(metaData[index].getColumnName());
+        }
+        return binding;
+    }
+
+    Object map(int[] binding, Object[] data) {
+        final Object entity = newInstance();
+        for (int index = 0; index < binding.length; index++) {
+            final int ordinal = binding[index];
+            if (ordinal < 0 || setters[ordinal] == null) {
+                continue;
+            }
+            Object value = data[index] == null ? null : converters[ordinal].convert(data[index]);
+            if (value == null && primitives[ordinal]) {
+                continue;
+            }
+            try {
+                setters[ordinal].invokeExact(entity, value);
+            } catch (Throwable ex) {
+                throw new IllegalArgumentException(table.getName() + " column is not mapped "
+                        + table.get(ordinal).getName(), ex);
+            }
+        }
+        if (entity instanceof SqlTracked) {
+            table.getWritePlan().snapshot(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Set a field value, used when a column is written without reading the row back
+     */
+    void setValue(int ordinal, Object entity, Object value) {
+        if (setters[ordinal] == null || (value == null && primitives[ordinal])) {
+            return;
+        }
+        try {
+            setters[ordinal].invokeExact(entity, value);
+        } catch (Throwable ex) {
+            throw new IllegalArgumentException(table.getName() + " column is not mapped "
+                    + table.get(ordinal).getName(), ex);
+        }
+    }
+
+    /**
+     * @return jdbc to field value converter of the column, null when the column has no field
+     */
+    SqlValueConverter getConverter(int ordinal) {
+        return converters[ordinal];
+    }
+
+    private Object newInstance() {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable ex) {
+            throw new IllegalArgumentException(table.getType() + " is not created", ex);
+        }
+    }
+
+    /**
+     * Enum values the codec does not know are left to the enum parser, which gives the default constant
+     */
+    private static SqlValueConverter createConverter(Class<?> type, SqlEnumCodec enumCodec,
+                                                     SqlEnumParser enumParser) {
+        if (String.class.equals(type)) {
+            return Object::toString;
+        } else if (BigDecimal.class.equals(type)) {
+            return value -> value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+        } else if (Date.class.equals(type)) {
+            return value -> new Date(((Date) value).getTime());
+        } else if (enumCodec != null) {
+            return value -> {
+                Object constant = enumCodec.decode(value);
+                return constant != null || enumParser == null ? constant : enumParser.parseEnum(type, value.toString());
+            };
+        } else if (int.class.equals(type) || Integer.class.equals(type)) {
+            return value -> ((Number) value).intValue();
+        } else if (long.class.equals(type) || Long.class.equals(type)) {
+            return value -> ((Number) value).longValue();
+        } else if (double.class.equals(type) || Double.class.equals(type)) {
+            return value -> ((Number) value).doubleValue();
+        } else if (short.class.equals(type) || Short.class.equals(type)) {
+            return value -> ((Number) value).shortValue();
+        }
+        return value -> value;
+    }
+}
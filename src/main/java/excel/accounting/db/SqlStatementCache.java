@@ -0,0 +1,107 @@
+package excel.accounting.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sql Statement Cache, least recently used prepared statements of one connection keyed by sql text
+ * A size below one still keeps the last statement, so every statement handed out is closed by the cache
+ * A statement held for an open result set is not handed out again, a prepare of the same sql meanwhile gets a
+ * new statement that takes its place in the cache, and a held statement leaving the cache is closed on release
+ */
+class SqlStatementCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statementMap;
+    private final Map<PreparedStatement, Boolean> heldMap;
+    private long hitCount, missCount;
+
+    SqlStatementCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        statementMap = new LinkedHashMap<>(16, 0.75f, true);
+        heldMap = new IdentityHashMap<>();
+    }
+
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = statementMap.get(sql);
+        if (statement != null && !heldMap.containsKey(statement) && !statement.isClosed()) {
+            statement.clearParameters();
+            statement.clearBatch();
+            hitCount += 1;
+            return statement;
+        }
+        missCount += 1;
+        if (statement != null) {
+            evict(statement);
+        }
+        statement = connection.prepareStatement(sql);
+        statementMap.put(sql, statement);
+        removeEldest();
+        return statement;
+    }
+
+    /**
+     * Statement the caller keeps busy until release, for result sets left open while other code runs
+     */
+    PreparedStatement hold(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = prepare(connection, sql);
+        heldMap.put(statement, Boolean.TRUE);
+        return statement;
+    }
+
+    void release(PreparedStatement statement) {
+        if (Boolean.FALSE.equals(heldMap.remove(statement))) {
+            close(statement);
+        }
+    }
+
+    long getHitCount() {
+        return hitCount;
+    }
+
+    long getMissCount() {
+        return missCount;
+    }
+
+    int size() {
+        return statementMap.size();
+    }
+
+    void closeAll() {
+        statementMap.values().forEach(SqlStatementCache::close);
+        statementMap.clear();
+        heldMap.keySet().forEach(SqlStatementCache::close);
+        heldMap.clear();
+    }
+
+    private void removeEldest() {
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = statementMap.entrySet().iterator();
+        while (maxSize < statementMap.size() && iterator.hasNext()) {
+            evict(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Close a statement leaving the cache, a held one is closed on release
+     */
+    private void evict(PreparedStatement statement) {
+        if (heldMap.containsKey(statement)) {
+            heldMap.put(statement, Boolean.FALSE);
+        } else {
+            close(statement);
+        }
+    }
+
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (Exception ex) {
+            // ignore
+        }
+    }
+}
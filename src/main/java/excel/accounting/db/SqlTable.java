@@ -4,20 +4,32 @@ import java.lang.reflect.Field;
 import java.util.*;
 
 /**
- * Sql Table
+ * Sql Table, columns addressed by ordinal
+ * Lookups by column name, field and enum codec are precomputed whenever the columns are set,
+ * nothing is built lazily. The factory freezes the table once built, after that it is read only and
+ * safe to share between threads
  */
-public class SqlTable extends ArrayList<SqlColumn> {
+public class SqlTable extends AbstractList<SqlColumn> implements RandomAccess {
+    private static final SqlColumn[] emptyColumns = new SqlColumn[0];
     private final Class<?> type;
     private final String name;
-    private List<Field> fieldList;
+    private SqlColumn[] columns;
+    private String[] columnNames;
+    private Field[] fields;
+    private SqlEnumCodec[] enumCodecs;
+    private Map<String, Integer> ordinalMap;
     private SqlColumn primaryColumn;
-    private Map<String, String> columnFieldMap;
-    private Map<String, Class<?>> enumFieldMap;
+    private List<Field> fieldList;
     private List<SqlReference> referenceList;
+    private List<SqlIndex> indexList;
+    private SqlRowMapper rowMapper;
+    private SqlWritePlan writePlan;
+    private boolean frozen;
 
     SqlTable(String name, Class<?> type) {
         this.name = name;
         this.type = type;
+        setColumns(Collections.emptyList());
     }
 
     public String getName() {
@@ -28,7 +40,43 @@ public class SqlTable extends ArrayList<SqlColumn> {
         return type;
     }
 
+    @Override
+    public SqlColumn get(int ordinal) {
+        return columns[ordinal];
+    }
+
+    @Override
+    public int size() {
+        return columns.length;
+    }
+
+    /**
+     * Replace the columns while building, ordinals follow the list order
+     */
+    void setColumns(List<SqlColumn> columnList) {
+        checkBuilding();
+        columns = columnList.isEmpty() ? emptyColumns : columnList.toArray(new SqlColumn[columnList.size()]);
+        columnNames = new String[columns.length];
+        fields = new Field[columns.length];
+        enumCodecs = new SqlEnumCodec[columns.length];
+        Map<String, Integer> nameMap = new HashMap<>();
+        primaryColumn = null;
+        for (int ordinal = 0; ordinal < columns.length; ordinal++) {
+            SqlColumn column = columns[ordinal];
+            column.setColIndex(ordinal);
+            columnNames[ordinal] = column.getName();
+            fields[ordinal] = findField(column);
+            enumCodecs[ordinal] = createEnumCodec(column, fields[ordinal]);
+            nameMap.put(column.getName(), ordinal);
+            if (primaryColumn == null && column.isPrimaryKey()) {
+                primaryColumn = column;
+            }
+        }
+        ordinalMap = nameMap;
+    }
+
     void setFieldList(List<Field> fieldList) {
+        checkBuilding();
         this.fieldList = fieldList;
     }
 
@@ -41,41 +89,107 @@ public class SqlTable extends ArrayList<SqlColumn> {
     }
 
     void setReferenceList(List<SqlReference> referenceList) {
+        checkBuilding();
         this.referenceList = referenceList;
     }
 
-    SqlColumn getPrimaryColumn() {
-        if (primaryColumn == null) {
-            for (SqlColumn column : this) {
-                if (column.isPrimaryKey()) {
-                    primaryColumn = column;
-                    break;
-                }
-            }
+    List<SqlIndex> getIndexList() {
+        return indexList;
+    }
+
+    void setIndexList(List<SqlIndex> indexList) {
+        checkBuilding();
+        this.indexList = indexList;
+    }
+
+    SqlRowMapper getRowMapper() {
+        return rowMapper;
+    }
+
+    void setRowMapper(SqlRowMapper rowMapper) {
+        checkBuilding();
+        this.rowMapper = rowMapper;
+    }
+
+    SqlWritePlan getWritePlan() {
+        return writePlan;
+    }
+
+    void setWritePlan(SqlWritePlan writePlan) {
+        checkBuilding();
+        this.writePlan = writePlan;
+    }
+
+    /**
+     * Make the table read only, called once the factory has built every table
+     */
+    void freeze() {
+        if (fieldList != null) {
+            fieldList = Collections.unmodifiableList(fieldList);
+        }
+        if (referenceList != null) {
+            referenceList = Collections.unmodifiableList(referenceList);
         }
+        indexList = indexList == null ? Collections.emptyList() : Collections.unmodifiableList(indexList);
+        ordinalMap = Collections.unmodifiableMap(ordinalMap);
+        frozen = true;
+    }
+
+    /**
+     * @return ordinal of the column, -1 when the table has no such column
+     */
+    int ordinalOf(String columnName) {
+        Integer ordinal = ordinalMap.get(columnName);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    Field getField(int ordinal) {
+        return fields[ordinal];
+    }
+
+    /**
+     * @return codec of an enum column, null for other types
+     */
+    SqlEnumCodec getEnumCodec(int ordinal) {
+        return enumCodecs[ordinal];
+    }
+
+    String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    SqlColumn getPrimaryColumn() {
         return primaryColumn;
     }
 
-    Map<String, String> getColumnFieldMap() {
-        if (columnFieldMap == null) {
-            columnFieldMap = new HashMap<>();
-            for (SqlColumn column : this) {
-                columnFieldMap.put(column.getName(), column.getFieldName());
+    private Field findField(SqlColumn column) {
+        if (fieldList == null) {
+            return null;
+        }
+        String fieldName = column.getFieldName() == null ? column.getName() : column.getFieldName();
+        for (Field field : fieldList) {
+            if (fieldName.equals(field.getName())) {
+                return field;
             }
         }
-        return columnFieldMap;
+        return null;
     }
 
-    Class<?> getEnumClass(String fieldName) {
-        if (enumFieldMap == null) {
-            enumFieldMap = new HashMap<>();
-            for (Field field : fieldList) {
-                if (field.getType().isEnum()) {
-                    enumFieldMap.put(field.getName(), field.getType());
-                }
-            }
+    private static SqlEnumCodec createEnumCodec(SqlColumn column, Field field) {
+        if (!column.getType().isEnum()) {
+            return null;
+        }
+        EnumColumn enumColumn = field == null ? null : field.getAnnotation(EnumColumn.class);
+        SqlEnumCodec codec = new SqlEnumCodec(column.getType(),
+                enumColumn == null ? SqlEnumStorage.Name : enumColumn.storage());
+        column.setEnumStorage(codec.getStorage());
+        return codec;
+    }
+
+    private void checkBuilding() {
+        if (frozen) {
+            throw new IllegalStateException(name + " table metadata is frozen");
         }
-        return enumFieldMap.get(fieldName);
     }
 
     @Override
@@ -1,36 +1,101 @@
 package excel.accounting.db;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
- * Sql Table Map
+ * Sql Table Map, tables by entity class and by name
+ * The name lookup and the enum codecs by enum type are built once on freeze, reads never change the map
+ * and are safe from any thread
  */
-public class SqlTableMap extends HashMap<Class<?>, SqlTable> {
+public class SqlTableMap {
     private final String schema;
-    private Map<String, SqlTable> tableMap;
+    private Map<Class<?>, SqlTable> typeMap;
+    private Map<String, SqlTable> nameMap;
+    private Map<Class<?>, SqlEnumCodec> enumCodecMap;
 
     SqlTableMap(String schema) {
         this.schema = schema;
-        tableMap = new HashMap<>();
+        typeMap = new HashMap<>();
     }
 
     public String getSchema() {
         return schema;
     }
 
+    public SqlTable get(Class<?> type) {
+        return typeMap.get(type);
+    }
+
+    public Collection<SqlTable> values() {
+        return typeMap.values();
+    }
+
+    public int size() {
+        return typeMap.size();
+    }
+
+    Set<Class<?>> keySet() {
+        return typeMap.keySet();
+    }
+
+    void put(Class<?> type, SqlTable table) {
+        if (nameMap != null) {
+            throw new IllegalStateException(schema + " table map is frozen");
+        }
+        typeMap.put(type, table);
+    }
+
+    /**
+     * Freeze every table and index them by name, in lower and upper case as databases report them
+     */
+    void freeze() {
+        Map<String, SqlTable> tableMap = new HashMap<>();
+        Map<Class<?>, SqlEnumCodec> codecMap = new HashMap<>();
+        for (SqlTable table : typeMap.values()) {
+            table.freeze();
+            tableMap.put(table.getName().toLowerCase(), table);
+            tableMap.put(table.getName().toUpperCase(), table);
+            for (int ordinal = 0; ordinal < table.size(); ordinal++) {
+                addEnumCodec(codecMap, table, table.getEnumCodec(ordinal));
+            }
+        }
+        typeMap = Collections.unmodifiableMap(typeMap);
+        nameMap = Collections.unmodifiableMap(tableMap);
+        enumCodecMap = Collections.unmodifiableMap(codecMap);
+    }
+
+    /**
+     * Query parameters are bound without their column, so an enum type has one storage across all tables
+     */
+    private void addEnumCodec(Map<Class<?>, SqlEnumCodec> codecMap, SqlTable table, SqlEnumCodec codec) {
+        if (codec == null) {
+            return;
+        }
+        SqlEnumCodec current = codecMap.putIfAbsent(codec.getType(), codec);
+        if (current != null && !current.getStorage().equals(codec.getStorage())) {
+            throw new IllegalStateException(table.getName() + " stores " + codec.getType() + " as "
+                    + codec.getStorage() + ", other tables as " + current.getStorage());
+        }
+    }
+
+    /**
+     * @return stored value of an enum query parameter, the constant name when no table has the enum type
+     */
+    Object encodeEnum(Enum<?> constant) {
+        SqlEnumCodec codec = enumCodecMap == null ? null : enumCodecMap.get(constant.getDeclaringClass());
+        return codec == null ? constant.name() : codec.encode(constant);
+    }
+
     SqlTable getSqlTable(String tableName) {
-        tableName = tableName.toLowerCase();
-        SqlTable result = tableMap.get(tableName);
-        if(result == null) {
-            for(SqlTable table : this.values()) {
-                if(tableName.equals(table.getName())) {
-                    result = table;
-                    tableMap.put(tableName, table);
-                    break;
+        if (nameMap == null) {
+            for (SqlTable table : typeMap.values()) {
+                if (table != null && table.getName().equalsIgnoreCase(tableName)) {
+                    return table;
                 }
             }
+            return null;
         }
-        return result;
+        SqlTable table = nameMap.get(tableName);
+        return table == null ? nameMap.get(tableName.toLowerCase()) : table;
     }
 }
@@ -0,0 +1,11 @@
+package excel.accounting.db;
+
+/**
+ * Sql Tracked, entity keeping the column values it was loaded with
+ * Update writes only the columns that differ from the snapshot, the snapshot is refreshed after commit
+ */
+public interface SqlTracked {
+    Object[] getSnapshot();
+
+    void setSnapshot(Object[] snapshot);
+}
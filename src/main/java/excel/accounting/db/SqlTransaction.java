@@ -21,4 +21,54 @@ public interface SqlTransaction {
     SqlQuery updateQuery(Object object) throws SQLException;
 
     SqlQuery deleteQuery(Object object) throws SQLException;
+
+    SqlQuery mergeQuery(Object object) throws SQLException;
+
+    void insert(List<?> objects) throws SQLException;
+
+    void update(List<?> objects) throws SQLException;
+
+    void delete(List<?> objects) throws SQLException;
+
+    /**
+     * Insert new rows and update existing rows by primary key, in one set based pass
+     */
+    void merge(List<?> objects) throws SQLException;
+
+    SqlBatchResult executeBulk(List<SqlQuery> queries, int batchSize, SqlBatchListener listener) throws SQLException;
+
+    /**
+     * Capture the current column values of an entity, on the thread that edits it
+     */
+    SqlRowImage capture(Object object);
+
+    /**
+     * Update rows from captured images in one transaction, only the columns changed since the snapshot
+     */
+    void updateImages(List<SqlRowImage> images) throws SQLException;
+
+    SqlBatchResult insertBulk(List<?> objects, int batchSize, SqlBatchListener listener) throws SQLException;
+
+    SqlBatchResult updateBulk(List<?> objects, int batchSize, SqlBatchListener listener) throws SQLException;
+
+    SqlBatchResult deleteBulk(List<?> objects, int batchSize, SqlBatchListener listener) throws SQLException;
+
+    SqlBatchResult mergeBulk(List<?> objects, int batchSize, SqlBatchListener listener) throws SQLException;
+
+    /**
+     * Set the column to toValue on the rows of the entities that still hold fromValue. Each chunk of keys takes
+     * two statements, a select for update of the keys still holding fromValue, which locks those rows, and the
+     * update guarded by fromValue, which then changes exactly the locked rows. H2 has no update returning the
+     * changed keys. All chunks run in one transaction and the row locks are held until it ends.
+     * The updated entities get toValue and their snapshot of the column refreshed, the others are left as they are
+     *
+     * @return entities whose rows were updated
+     */
+    <T> List<T> updateTransition(String column, Object fromValue, Object toValue, List<T> entities)
+            throws SQLException;
+
+    /**
+     * Initial load of a large entity list through a staged csv file, all rows or none are committed
+     */
+    SqlBulkLoadResult bulkLoad(List<?> objects) throws SQLException;
 }
@@ -0,0 +1,225 @@
+package excel.accounting.db;
+
+import org.apache.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Sql Unit Of Work, one pooled connection held by a thread for the scope of a service operation
+ * Entities read by primary key are kept in an identity map by entity class and key, a key is read from the
+ * database once and every later find returns the same instance. Inserts, updates and deletes are tracked and
+ * committed together in one transaction by commit. Reads and writes of the sql reader and sql transaction on this
+ * thread run on the same connection and commit with it, a failed statement rolls everything back and the
+ * commit that follows throws. Close releases the connection, writes not committed are rolled back with a
+ * warning. Opening a unit of work on a thread that has one joins it, only the outermost commit writes
+ */
+public class SqlUnitOfWork implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(SqlUnitOfWork.class);
+    private static final int keyChunkSize = 1000;
+    private final H2Processor processor;
+    private final SqlConnection connection;
+    private final Map<Class<?>, Map<Object, Object>> identityMap;
+    private final Map<Object, SqlWriteType> writeMap;
+    private final List<Object> writeList;
+    private final List<Runnable> committedList;
+    private boolean rolledBack;
+    private int depth;
+
+    SqlUnitOfWork(H2Processor processor, SqlConnection connection) {
+        this.processor = processor;
+        this.connection = connection;
+        identityMap = new HashMap<>();
+        writeMap = new IdentityHashMap<>();
+        writeList = new ArrayList<>();
+        committedList = new ArrayList<>();
+        depth = 1;
+    }
+
+    SqlConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Statement run on the connection of this unit of work, the action follows its commit
+     */
+    void afterCommit(Runnable action) {
+        committedList.add(action);
+    }
+
+    /**
+     * A statement failed, everything written in this unit of work so far is dropped
+     */
+    void rollback() {
+        connection.rollback();
+        committedList.clear();
+        rolledBack = true;
+    }
+
+    void join() {
+        depth += 1;
+    }
+
+    /**
+     * @return entity of the primary key, null when no row has it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T find(Class<T> entityClass, Object key) throws SQLException {
+        Map<Object, Object> entityMap = getEntityMap(entityClass);
+        if (!entityMap.containsKey(key)) {
+            SqlTable table = getTable(entityClass);
+            H2QueryBuilder builder = getReader().selectBuilder(entityClass);
+            builder.where(table.getPrimaryColumn().getName(), key);
+            List<T> entityList = getReader().entityList(connection, builder.getSqlQuery());
+            entityMap.put(key, entityList.isEmpty() ? null : entityList.get(0));
+        }
+        return (T) entityMap.get(key);
+    }
+
+    /**
+     * Keys missing from the identity map are read with one in query per chunk
+     *
+     * @return entities by primary key in key order, keys without a row are absent
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<Object, T> findAll(Class<T> entityClass, Collection<?> keys) throws SQLException {
+        Map<Object, Object> entityMap = getEntityMap(entityClass);
+        List<Object> missingList = new ArrayList<>();
+        for (Object key : new LinkedHashSet<>(keys)) {
+            if (key != null && !entityMap.containsKey(key)) {
+                missingList.add(key);
+            }
+        }
+        SqlTable table = getTable(entityClass);
+        for (int fromIndex = 0; fromIndex < missingList.size(); fromIndex += keyChunkSize) {
+            List<Object> chunk = new ArrayList<>(missingList.subList(fromIndex,
+                    Math.min(fromIndex + keyChunkSize, missingList.size())));
+            H2QueryBuilder builder = processor.getSqlReader().selectBuilder(entityClass);
+            builder.whereAndIn(table.getPrimaryColumn().getName(), chunk);
+            for (Object key : chunk) {
+                entityMap.put(key, null);
+            }
+            for (Object entity : getReader().entityList(connection, builder.getSqlQuery())) {
+                entityMap.put(getKey(table, entity), entity);
+            }
+        }
+        Map<Object, T> resultMap = new LinkedHashMap<>();
+        for (Object key : keys) {
+            Object entity = key == null ? null : entityMap.get(key);
+            if (entity != null) {
+                resultMap.put(key, (T) entity);
+            }
+        }
+        return resultMap;
+    }
+
+    public void insert(Object entity) {
+        getEntityMap(entity.getClass()).put(getKey(getTable(entity.getClass()), entity), entity);
+        track(entity, SqlWriteType.Insert);
+    }
+
+    /**
+     * Entities read in this unit of work update only their changed columns
+     */
+    public void update(Object entity) {
+        if (!SqlWriteType.Insert.equals(writeMap.get(entity))) {
+            track(entity, SqlWriteType.Update);
+        }
+    }
+
+    public void delete(Object entity) {
+        getEntityMap(entity.getClass()).put(getKey(getTable(entity.getClass()), entity), null);
+        if (SqlWriteType.Insert.equals(writeMap.get(entity))) {
+            writeMap.remove(entity);
+            writeList.remove(entity);
+        } else {
+            track(entity, SqlWriteType.Delete);
+        }
+    }
+
+    private void track(Object entity, SqlWriteType type) {
+        if (writeMap.put(entity, type) == null) {
+            writeList.add(entity);
+        }
+    }
+
+    /**
+     * Write the tracked entities in one transaction, inserts and updates by table in first use order and deletes
+     * in the reverse table order, so rows referenced by other tracked rows are written first and deleted last
+     */
+    public void commit() throws SQLException {
+        if (1 < depth) {
+            return;
+        }
+        if (rolledBack) {
+            throw new SQLException("Unit of work rolled back after a failed statement, nothing is committed");
+        }
+        if (writeList.isEmpty() && committedList.isEmpty()) {
+            return;
+        }
+        try {
+            ((H2Transaction) processor.getSqlTransaction()).flush(this, getWrites(SqlWriteType.Insert, false),
+                    getWrites(SqlWriteType.Update, false), getWrites(SqlWriteType.Delete, true));
+            connection.commit();
+        } catch (SQLException ex) {
+            rollback();
+            throw ex;
+        }
+        writeMap.clear();
+        writeList.clear();
+        List<Runnable> actionList = new ArrayList<>(committedList);
+        committedList.clear();
+        actionList.forEach(Runnable::run);
+    }
+
+    private List<Object> getWrites(SqlWriteType type, boolean reverse) {
+        Map<Class<?>, List<Object>> typeMap = new LinkedHashMap<>();
+        for (Object entity : writeList) {
+            if (type.equals(writeMap.get(entity))) {
+                typeMap.computeIfAbsent(entity.getClass(), key -> new ArrayList<>()).add(entity);
+            }
+        }
+        List<List<Object>> groupList = new ArrayList<>(typeMap.values());
+        if (reverse) {
+            Collections.reverse(groupList);
+        }
+        List<Object> rowList = new ArrayList<>();
+        groupList.forEach(rowList::addAll);
+        return rowList;
+    }
+
+    /**
+     * Release the connection, writes not committed are rolled back and logged
+     */
+    @Override
+    public void close() {
+        depth -= 1;
+        if (depth == 0) {
+            if (!writeList.isEmpty() || !committedList.isEmpty()) {
+                logger.warn("Unit of work closed without commit, rolled back " + writeList.size()
+                        + " tracked entities and " + committedList.size() + " statements");
+            }
+            processor.closeUnitOfWork(this, connection);
+        }
+    }
+
+    private H2Reader getReader() {
+        return (H2Reader) processor.getSqlReader();
+    }
+
+    private Map<Object, Object> getEntityMap(Class<?> entityClass) {
+        return identityMap.computeIfAbsent(entityClass, key -> new HashMap<>());
+    }
+
+    private SqlTable getTable(Class<?> entityClass) {
+        SqlTable table = processor.getSqlTable(entityClass);
+        if (table == null || table.getPrimaryColumn() == null) {
+            throw new IllegalArgumentException(entityClass + " primary column not found");
+        }
+        return table;
+    }
+
+    private static Object getKey(SqlTable table, Object entity) {
+        return table.getWritePlan().getValue(table.getWritePlan().getPrimaryOrdinal(), entity);
+    }
+}
@@ -0,0 +1,8 @@
+package excel.accounting.db;
+
+/**
+ * Sql Value Converter, jdbc value to entity field value
+ */
+interface SqlValueConverter {
+    Object convert(Object value);
+}
@@ -0,0 +1,8 @@
+package excel.accounting.db;
+
+/**
+ * Sql Vector Type, primitive storage of one result column
+ */
+enum SqlVectorType {
+    Int, Long, Double, Decimal, Text
+}
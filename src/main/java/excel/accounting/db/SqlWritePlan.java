@@ -0,0 +1,384 @@
+package excel.accounting.db;
+
+import javax.persistence.TemporalType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sql Write Plan, immutable insert, update and delete statements of one table
+ * Sql text, column getters and parameter binders are compiled once, rows are bound straight to the statement
+ * Update of a tracked entity sets only the columns changed since its snapshot, one sql text per column set
+ */
+class SqlWritePlan {
+    private static final MethodType getterType = MethodType.methodType(Object.class, Object.class);
+    private final SqlTable table;
+    private final String insertQuery, updateQuery, deleteQuery, mergeQuery;
+    private final MethodHandle[] getters;
+    private final SqlParameterBinder[] binders;
+    private final int primaryOrdinal;
+    private final String tableName;
+    private final Map<BitSet, String> updateQueryMap;
+
+    SqlWritePlan(String schema, SqlTable table) {
+        this.table = table;
+        final int size = table.size();
+        getters = new MethodHandle[size];
+        binders = new SqlParameterBinder[size];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                SqlColumn column = table.get(ordinal);
+                Field field = table.getField(ordinal);
+                if (field == null) {
+                    throw new IllegalArgumentException(table.getType() + " field not found " + column.getName());
+                }
+                field.setAccessible(true);
+                getters[ordinal] = lookup.unreflectGetter(field).asType(getterType);
+                binders[ordinal] = createBinder(column, table.getEnumCodec(ordinal));
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException(table.getType() + " write plan is not created", ex);
+        }
+        SqlColumn primaryColumn = table.getPrimaryColumn();
+        primaryOrdinal = primaryColumn == null ? -1 : table.indexOf(primaryColumn);
+        tableName = schema + "." + table.getName();
+        updateQueryMap = new ConcurrentHashMap<>();
+        insertQuery = buildInsertQuery(tableName);
+        updateQuery = primaryColumn == null ? null : buildUpdateQuery(tableName, primaryColumn);
+        deleteQuery = primaryColumn == null ? null : buildDeleteQuery(tableName, primaryColumn);
+        mergeQuery = primaryColumn == null ? null : buildMergeQuery(tableName, primaryColumn);
+    }
+
+    String getQuery(SqlWriteType type) {
+        String query;
+        if (SqlWriteType.Insert.equals(type)) {
+            query = insertQuery;
+        } else if (SqlWriteType.Update.equals(type)) {
+            query = updateQuery;
+        } else if (SqlWriteType.Merge.equals(type)) {
+            query = mergeQuery;
+        } else {
+            query = deleteQuery;
+        }
+        if (query == null) {
+            throw new IllegalArgumentException(table.getName() + " primary column not found to " + type);
+        }
+        return query;
+    }
+
+    void bind(SqlWriteType type, PreparedStatement statement, Object object) throws SQLException {
+        if (SqlWriteType.Insert.equals(type) || SqlWriteType.Merge.equals(type)) {
+            for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+                bindColumn(statement, ordinal + 1, ordinal, object);
+            }
+        } else if (SqlWriteType.Update.equals(type)) {
+            bindUpdate(statement, object, null);
+        } else {
+            bindColumn(statement, 1, primaryOrdinal, object);
+        }
+    }
+
+    /**
+     * @param values captured column values to bind, null to read the entity
+     */
+    void bindUpdate(PreparedStatement statement, Object object, Object[] values) throws SQLException {
+        BitSet changed = getUpdateColumns(object, values);
+        int index = 1;
+        for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+            if (ordinal != primaryOrdinal && (changed == null || changed.get(ordinal))) {
+                binders[ordinal].bind(statement, index, valueOf(ordinal, object, values));
+                index += 1;
+            }
+        }
+        binders[primaryOrdinal].bind(statement, index, valueOf(primaryOrdinal, object, values));
+    }
+
+    /**
+     * Update sql of the row, only the changed columns of a tracked entity
+     */
+    String getQuery(SqlWriteType type, Object object) {
+        return SqlWriteType.Update.equals(type) ? getUpdateQuery(object, null) : getQuery(type);
+    }
+
+    /**
+     * @param values captured column values, null to read the entity
+     */
+    String getUpdateQuery(Object object, Object[] values) {
+        BitSet changed = getUpdateColumns(object, values);
+        return changed == null ? getQuery(SqlWriteType.Update)
+                : updateQueryMap.computeIfAbsent(changed, this::buildUpdateQuery);
+    }
+
+    /**
+     * @return false when a tracked entity has no column changed since its snapshot
+     */
+    boolean isChanged(Object object) {
+        return isChanged(object, null);
+    }
+
+    boolean isChanged(Object object, Object[] values) {
+        BitSet changed = getChangedColumns(object, values);
+        return changed == null || !changed.isEmpty();
+    }
+
+    /**
+     * @return changed ordinals to set, null to set every column
+     */
+    private BitSet getUpdateColumns(Object object, Object[] values) {
+        BitSet changed = primaryOrdinal < 0 ? null : getChangedColumns(object, values);
+        return changed == null || changed.isEmpty() ? null : changed;
+    }
+
+    /**
+     * @return ordinals that differ from the snapshot, null when the entity is not tracked or never loaded
+     */
+    private BitSet getChangedColumns(Object object, Object[] values) {
+        if (!(object instanceof SqlTracked)) {
+            return null;
+        }
+        Object[] snapshot = ((SqlTracked) object).getSnapshot();
+        if (snapshot == null || snapshot.length != getters.length) {
+            return null;
+        }
+        BitSet changed = new BitSet(getters.length);
+        for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+            if (ordinal != primaryOrdinal && !isEqual(snapshot[ordinal], valueOf(ordinal, object, values))) {
+                changed.set(ordinal);
+            }
+        }
+        return changed;
+    }
+
+    private Object valueOf(int ordinal, Object object, Object[] values) {
+        return values == null ? getValue(ordinal, object) : values[ordinal];
+    }
+
+    private static boolean isEqual(Object snapshotValue, Object value) {
+        if (snapshotValue == null || value == null) {
+            return snapshotValue == value;
+        } else if (snapshotValue instanceof BigDecimal && value instanceof BigDecimal) {
+            return ((BigDecimal) snapshotValue).compareTo((BigDecimal) value) == 0;
+        }
+        return snapshotValue.equals(value);
+    }
+
+    /**
+     * Keep the current column values of a tracked entity, dates are copied as they are mutable
+     */
+    void snapshot(Object object) {
+        if (object instanceof SqlTracked) {
+            ((SqlTracked) object).setSnapshot(capture(object));
+        }
+    }
+
+    /**
+     * Keep column values captured earlier as the snapshot, the values written rather than the current ones
+     */
+    void snapshot(Object object, Object[] values) {
+        if (object instanceof SqlTracked) {
+            ((SqlTracked) object).setSnapshot(values.clone());
+        }
+    }
+
+    /**
+     * @return current column values of the entity, dates copied
+     */
+    Object[] capture(Object object) {
+        Object[] values = new Object[getters.length];
+        for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+            Object value = getValue(ordinal, object);
+            if (value instanceof java.util.Date) {
+                value = new java.util.Date(((java.util.Date) value).getTime());
+            }
+            values[ordinal] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Refresh one column of the snapshot after it was written on its own, other pending changes stay dirty
+     */
+    void snapshotColumn(int ordinal, Object object) {
+        if (!(object instanceof SqlTracked) || ((SqlTracked) object).getSnapshot() == null) {
+            return;
+        }
+        Object value = getValue(ordinal, object);
+        if (value instanceof java.util.Date) {
+            value = new java.util.Date(((java.util.Date) value).getTime());
+        }
+        ((SqlTracked) object).getSnapshot()[ordinal] = value;
+    }
+
+    SqlQuery createQuery(SqlWriteType type, Object object) {
+        SqlQuery sqlQuery = new SqlQuery(getQuery(type, object));
+        if (SqlWriteType.Insert.equals(type) || SqlWriteType.Merge.equals(type)) {
+            for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+                sqlQuery.add(getValue(ordinal, object));
+            }
+        } else if (SqlWriteType.Update.equals(type)) {
+            BitSet changed = getUpdateColumns(object, null);
+            for (int ordinal = 0; ordinal < getters.length; ordinal++) {
+                if (ordinal != primaryOrdinal && (changed == null || changed.get(ordinal))) {
+                    sqlQuery.add(getValue(ordinal, object));
+                }
+            }
+            sqlQuery.add(getValue(primaryOrdinal, object));
+        } else {
+            sqlQuery.add(getValue(primaryOrdinal, object));
+        }
+        return sqlQuery;
+    }
+
+    Object getValue(int ordinal, Object object) {
+        try {
+            return (Object) getters[ordinal].invokeExact(object);
+        } catch (Throwable ex) {
+            throw new IllegalArgumentException(table.getName() + " column is not readable "
+                    + table.get(ordinal).getName(), ex);
+        }
+    }
+
+    private void bindColumn(PreparedStatement statement, int index, int ordinal, Object object)
+            throws SQLException {
+        binders[ordinal].bind(statement, index, getValue(ordinal, object));
+    }
+
+    /**
+     * Column value in the text form H2 converts back to the column type, for csv staging
+     */
+    String getText(int ordinal, Object object) {
+        Object value = getValue(ordinal, object);
+        if (value == null) {
+            return null;
+        } else if (value instanceof java.util.Date) {
+            long time = ((java.util.Date) value).getTime();
+            return TemporalType.TIMESTAMP.equals(table.get(ordinal).getTemporalType())
+                    ? new Timestamp(time).toString() : new Date(time).toString();
+        } else if (value instanceof Enum) {
+            return table.getEnumCodec(ordinal).encode(value).toString();
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    int getPrimaryOrdinal() {
+        return primaryOrdinal;
+    }
+
+    private String buildInsertQuery(String tableName) {
+        StringBuilder sb = new StringBuilder("insert into ").append(tableName).append(" (");
+        StringBuilder pss = new StringBuilder("(");
+        for (SqlColumn column : table) {
+            sb.append(column.getName()).append(",");
+            pss.append("?,");
+        }
+        sb.replace(sb.length() - 1, sb.length(), ")");
+        pss.replace(pss.length() - 1, pss.length(), ")");
+        return sb.append(" values ").append(pss).append(";").toString();
+    }
+
+    private String buildUpdateQuery(String tableName, SqlColumn primaryColumn) {
+        StringBuilder sb = new StringBuilder("update ").append(tableName).append(" set ");
+        for (SqlColumn column : table) {
+            if (!column.isPrimaryKey()) {
+                sb.append(column.getName()).append(" = ?,");
+            }
+        }
+        sb.replace(sb.length() - 1, sb.length(), " ");
+        return sb.append("where ").append(primaryColumn.getName()).append(" = ?;").toString();
+    }
+
+    private String buildUpdateQuery(BitSet changed) {
+        StringBuilder sb = new StringBuilder("update ").append(tableName).append(" set ");
+        for (int ordinal = changed.nextSetBit(0); 0 <= ordinal; ordinal = changed.nextSetBit(ordinal + 1)) {
+            sb.append(table.get(ordinal).getName()).append(" = ?,");
+        }
+        sb.replace(sb.length() - 1, sb.length(), " ");
+        return sb.append("where ").append(table.getPrimaryColumn().getName()).append(" = ?;").toString();
+    }
+
+    /**
+     * H2 merge, updates the row of an existing primary key and inserts otherwise
+     */
+    private String buildMergeQuery(String tableName, SqlColumn primaryColumn) {
+        String insert = buildInsertQuery(tableName);
+        int valuesIndex = insert.indexOf(" values ");
+        return "merge" + insert.substring("insert".length(), valuesIndex) + " key(" + primaryColumn.getName() + ")"
+                + insert.substring(valuesIndex);
+    }
+
+    private String buildDeleteQuery(String tableName, SqlColumn primaryColumn) {
+        return "delete from " + tableName + " where " + primaryColumn.getName() + " = ?;";
+    }
+
+    private static SqlParameterBinder createBinder(SqlColumn column, SqlEnumCodec enumCodec) {
+        final Class<?> type = column.getType();
+        if (String.class.equals(type)) {
+            return (statement, index, value) -> statement.setString(index, (String) value);
+        } else if (BigDecimal.class.equals(type)) {
+            return (statement, index, value) -> statement.setBigDecimal(index, (BigDecimal) value);
+        } else if (java.util.Date.class.equals(type)) {
+            if (TemporalType.TIMESTAMP.equals(column.getTemporalType())) {
+                return (statement, index, value) -> statement.setTimestamp(index, value == null ? null
+                        : new Timestamp(((java.util.Date) value).getTime()));
+            }
+            return (statement, index, value) -> statement.setDate(index, value == null ? null
+                    : new Date(((java.util.Date) value).getTime()));
+        } else if (enumCodec != null && enumCodec.isCompact()) {
+            return (statement, index, value) -> {
+                if (value == null) {
+                    statement.setNull(index, Types.TINYINT);
+                } else {
+                    statement.setByte(index, ((Integer) enumCodec.encode(value)).byteValue());
+                }
+            };
+        } else if (enumCodec != null) {
+            return (statement, index, value) -> statement.setString(index, (String) enumCodec.encode(value));
+        } else if (int.class.equals(type) || Integer.class.equals(type)) {
+            return (statement, index, value) -> {
+                if (value == null) {
+                    statement.setNull(index, Types.INTEGER);
+                } else {
+                    statement.setInt(index, (Integer) value);
+                }
+            };
+        } else if (long.class.equals(type) || Long.class.equals(type)) {
+            return (statement, index, value) -> {
+                if (value == null) {
+                    statement.setNull(index, Types.BIGINT);
+                } else {
+                    statement.setLong(index, (Long) value);
+                }
+            };
+        } else if (boolean.class.equals(type) || Boolean.class.equals(type)) {
+            return (statement, index, value) -> {
+                if (value == null) {
+                    statement.setNull(index, Types.BOOLEAN);
+                } else {
+                    statement.setBoolean(index, (Boolean) value);
+                }
+            };
+        } else if (double.class.equals(type) || Double.class.equals(type)) {
+            return (statement, index, value) -> {
+                if (value == null) {
+                    statement.setNull(index, Types.DOUBLE);
+                } else {
+                    statement.setDouble(index, (Double) value);
+                }
+            };
+        }
+        return PreparedStatement::setObject;
+    }
+}
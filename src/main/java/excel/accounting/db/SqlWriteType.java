@@ -0,0 +1,8 @@
+package excel.accounting.db;
+
+/**
+ * Sql Write Type
+ */
+enum SqlWriteType {
+    Insert, Update, Delete, Merge
+}
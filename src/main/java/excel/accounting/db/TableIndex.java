@@ -0,0 +1,24 @@
+package excel.accounting.db;
+
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Secondary index of an entity table, columns are field names as in ColumnIndex
+ * On a field the index starts with that field's column and continues with columns (composite),
+ * on a class columns lists the whole index. Indexes of super classes apply to every sub class table
+ */
+@Target({TYPE, FIELD})
+@Retention(RUNTIME)
+@Repeatable(TableIndexes.class)
+public @interface TableIndex {
+
+    String[] columns() default {};
+
+    boolean unique() default false;
+}
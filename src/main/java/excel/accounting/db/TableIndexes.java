@@ -0,0 +1,18 @@
+package excel.accounting.db;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Table Indexes, container of repeated TableIndex
+ */
+@Target({TYPE, FIELD})
+@Retention(RUNTIME)
+public @interface TableIndexes {
+
+    TableIndex[] value();
+}
@@ -61,13 +61,45 @@ public class WhereQuery {
         }
     }
 
+    /**
+     * Rows after the key in (column1, column2 ...) order, expanded as c1 > ? or (c1 = ? and c2 > ?) ...
+     */
+    public void whereAfter(String[] columns, Object[] keys) {
+        whereSeek(columns, keys, " > ?");
+    }
+
+    /**
+     * Rows before the key in (column1, column2 ...) order, for descending pages
+     */
+    public void whereBefore(String[] columns, Object[] keys) {
+        whereSeek(columns, keys, " < ?");
+    }
+
+    private void whereSeek(String[] columns, Object[] keys, String operator) {
+        StringBuilder sb = new StringBuilder(" and (");
+        for (int index = 0; index < columns.length; index++) {
+            if (0 < index) {
+                sb.append(" or ");
+            }
+            sb.append("(");
+            for (int prefix = 0; prefix < index; prefix++) {
+                sb.append(columns[prefix]).append(" = ? and ");
+                parameterList.add(keys[prefix]);
+            }
+            sb.append(columns[index]).append(operator).append(")");
+            parameterList.add(keys[index]);
+        }
+        queryList.add(sb.append(")").toString());
+    }
+
     private String buildInArray(int length) {
         StringBuilder sb = new StringBuilder("(");
         while (0 < length) {
-            sb.append(",?");
+            sb.append("?,");
             length = length - 1;
         }
-        return sb.toString().replaceFirst(",", ")");
+        sb.replace(sb.length() - 1, sb.length(), ")");
+        return sb.toString();
     }
 
     List<Object> getParameterList() {
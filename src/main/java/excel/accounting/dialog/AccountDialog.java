@@ -11,8 +11,6 @@ import javafx.collections.ObservableList;
 import javafx.scene.Parent;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
-
 /**
  * Account Dialog
  */
@@ -46,9 +44,11 @@ public class AccountDialog extends AbstractDialog {
     }
 
     private void loadAccount() {
-        List<Account> accounts = accountDao.searchAccount(searchTextField.getText(), Status.Confirmed, accTypes);
-        ObservableList<Account> observableList = FXCollections.observableArrayList(accounts);
-        tableView.setItems(observableList);
+        accountDao.searchAccountAsync("accountDialog", searchTextField.getText(), Status.Confirmed, accTypes)
+                .thenAccept(accounts -> {
+                    ObservableList<Account> observableList = FXCollections.observableArrayList(accounts);
+                    tableView.setItems(observableList);
+                });
     }
 
     public Account getSelected() {
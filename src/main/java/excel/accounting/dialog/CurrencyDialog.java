@@ -10,8 +10,6 @@ import javafx.collections.ObservableList;
 import javafx.scene.Parent;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
-
 /**
  * Currency Dialog
  */
@@ -36,9 +34,11 @@ public class CurrencyDialog extends AbstractDialog {
     }
 
     private void loadCurrency() {
-        List<Currency> currencyList = currencyDao.searchCurrency(searchTextField.getText(), Status.Confirmed);
-        ObservableList<Currency> observableList = FXCollections.observableArrayList(currencyList);
-        tableView.setItems(observableList);
+        currencyDao.searchCurrencyAsync("currencyDialog", searchTextField.getText(), Status.Confirmed)
+                .thenAccept(currencyList -> {
+                    ObservableList<Currency> observableList = FXCollections.observableArrayList(currencyList);
+                    tableView.setItems(observableList);
+                });
     }
 
     public Currency getSelected() {
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.CachedTable;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
@@ -12,6 +14,7 @@ import java.math.BigDecimal;
  * @since Oct, 2016
  */
 @Table(name = "account")
+@CachedTable
 public class Account extends MasterRecord {
 
     @JoinColumn(name = "currency", table = "currency")
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.TableIndex;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import java.math.BigDecimal;
@@ -12,6 +14,7 @@ import java.util.Date;
  * @since Oct, 2016
  */
 public class BankTransaction extends DocumentRecord {
+    @TableIndex
     @Column(name = "transaction_date")
     private Date transactionDate;
 
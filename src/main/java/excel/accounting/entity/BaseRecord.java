@@ -1,6 +1,7 @@
 package excel.accounting.entity;
 
 import excel.accounting.db.ColumnIndex;
+import excel.accounting.db.SqlTracked;
 
 import javax.persistence.Column;
 import javax.persistence.Id;
@@ -9,11 +10,13 @@ import javax.persistence.Id;
  * Base Record
  */
 @ColumnIndex(columns = {"code"})
-public abstract class BaseRecord {
+public abstract class BaseRecord implements SqlTracked {
     @Id
     @Column(name = "code", length = 8)
     private String code;
 
+    private transient Object[] snapshot;
+
     public String getCode() {
         return code;
     }
@@ -21,4 +24,14 @@ public abstract class BaseRecord {
     public void setCode(String code) {
         this.code = code;
     }
+
+    @Override
+    public Object[] getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void setSnapshot(Object[] snapshot) {
+        this.snapshot = snapshot;
+    }
 }
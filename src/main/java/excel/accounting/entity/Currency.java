@@ -1,5 +1,6 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.CachedTable;
 import excel.accounting.db.ColumnIndex;
 
 import javax.persistence.Column;
@@ -13,6 +14,7 @@ import javax.persistence.Table;
  */
 
 @Table(name = "currency")
+@CachedTable
 @ColumnIndex(columns = {"symbol", "decimalPrecision"})
 public class Currency extends MasterRecord {
     @Column(name = "symbol")
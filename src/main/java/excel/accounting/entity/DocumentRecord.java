@@ -1,6 +1,9 @@
 package excel.accounting.entity;
 
 import excel.accounting.db.ColumnIndex;
+import excel.accounting.db.EnumColumn;
+import excel.accounting.db.SqlEnumStorage;
+import excel.accounting.db.TableIndex;
 
 import javax.persistence.Column;
 
@@ -9,7 +12,9 @@ import javax.persistence.Column;
  */
 @ColumnIndex(columns = {"status"})
 public abstract class DocumentRecord extends BaseRecord {
+    @TableIndex
     @Column(name = "status", length = 16)
+    @EnumColumn(storage = SqlEnumStorage.Code)
     private Status status;
 
     public Status getStatus() {
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.TableIndex;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
@@ -13,6 +15,7 @@ import java.util.Date;
  * @since Oct, 2016
  */
 @Table(name = "exchange_rate")
+@TableIndex(columns = {"currency", "asOfDate"})
 public class ExchangeRate extends DocumentRecord {
 
     @Column(name = "fetch_from")
@@ -24,6 +27,7 @@ public class ExchangeRate extends DocumentRecord {
     @JoinColumn(name = "exchange_currency", table = "currency")
     private String exchangeCurrency;
 
+    @TableIndex
     @Column(name = "asof_date")
     private Date asOfDate;
 
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.CachedTable;
+
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
 
@@ -10,6 +12,7 @@ import javax.persistence.Table;
  * @since Oct, 2016
  */
 @Table(name = "expense_category")
+@CachedTable
 public class ExpenseCategory extends MasterRecord {
 
     private String description;
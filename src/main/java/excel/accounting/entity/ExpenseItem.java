@@ -1,5 +1,9 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.EnumColumn;
+import excel.accounting.db.SqlEnumStorage;
+import excel.accounting.db.TableIndex;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
@@ -15,6 +19,7 @@ import java.util.Date;
 @Table(name = "expense_item")
 public class ExpenseItem extends MasterRecord {
 
+    @TableIndex
     @Column(name = "expense_date")
     private Date expenseDate;
 
@@ -39,7 +44,9 @@ public class ExpenseItem extends MasterRecord {
     @Column(name = "paid_amount")
     private BigDecimal paidAmount;
 
+    @TableIndex
     @Column(name = "paid_status")
+    @EnumColumn(storage = SqlEnumStorage.Code)
     private PaidStatus paidStatus;
 
     public String getGroupCode() {
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.TableIndex;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
@@ -15,6 +17,7 @@ import java.util.Date;
 @Table(name = "income_item")
 public class IncomeItem extends DocumentRecord {
 
+    @TableIndex
     @Column(name = "income_date")
     private Date incomeDate;
 
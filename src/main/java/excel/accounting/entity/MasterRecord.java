@@ -1,6 +1,9 @@
 package excel.accounting.entity;
 
 import excel.accounting.db.ColumnIndex;
+import excel.accounting.db.EnumColumn;
+import excel.accounting.db.SqlEnumStorage;
+import excel.accounting.db.TableIndex;
 
 import javax.persistence.Column;
 
@@ -12,7 +15,9 @@ class MasterRecord extends BaseRecord {
     @Column(name = "data_type", length = 16)
     private String dataType;
 
+    @TableIndex
     @Column(name = "status", length = 16)
+    @EnumColumn(storage = SqlEnumStorage.Code)
     private Status status;
 
     @Column(name = "name")
@@ -2,21 +2,30 @@
 
 package excel.accounting.entity;
 
+import excel.accounting.db.SqlEnumCode;
+
 /**
  * Status
  *
  * @author Ramesh
  * @since Oct, 2016
  */
-public enum PaidStatus {
-    Unpaid("Unpaid"), FullyPaid("Fully Paid"), PartiallyPaid("Partially Paid");
+public enum PaidStatus implements SqlEnumCode {
+    Unpaid(1, "Unpaid"), FullyPaid(2, "Fully Paid"), PartiallyPaid(3, "Partially Paid");
 
+    private int code;
     private String title;
 
-    PaidStatus(String title) {
+    PaidStatus(int code, String title) {
+        this.code = code;
         this.title = title;
     }
 
+    @Override
+    public int getCode() {
+        return code;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.TableIndex;
+
 import javax.persistence.Column;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
@@ -28,6 +30,7 @@ public class Payment extends DocumentRecord {
 
     private int instalment;
 
+    @TableIndex
     @Column(name = "payment_date")
     private Date paymentDate;
 
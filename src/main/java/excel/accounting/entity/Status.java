@@ -1,20 +1,29 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.SqlEnumCode;
+
 /**
  * Status
  *
  * @author Ramesh
  * @since Oct, 2016
  */
-public enum Status {
-    Drafted("Drafted"), Confirmed("Confirmed"), Closed("Closed");
+public enum Status implements SqlEnumCode {
+    Drafted(1, "Drafted"), Confirmed(2, "Confirmed"), Closed(3, "Closed");
 
+    private int code;
     private String title;
 
-    Status(String title) {
+    Status(int code, String title) {
+        this.code = code;
         this.title = title;
     }
 
+    @Override
+    public int getCode() {
+        return code;
+    }
+
     public String getTitle() {
         return title;
     }
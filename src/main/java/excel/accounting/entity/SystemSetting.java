@@ -1,5 +1,7 @@
 package excel.accounting.entity;
 
+import excel.accounting.db.CachedTable;
+
 import javax.persistence.Column;
 import javax.persistence.Table;
 import java.math.BigDecimal;
@@ -12,6 +14,7 @@ import java.util.Date;
  * @since Nov, 2016
  */
 @Table(name = "system_setting")
+@CachedTable
 public class SystemSetting extends DocumentRecord {
 
     @Column(name = "group_code")
@@ -1,11 +1,18 @@
 package excel.accounting.model;
 
+import excel.accounting.db.SqlDatabaseConfig;
+import excel.accounting.db.SqlPoolConfig;
+
 /**
  * Application Config
+ * The database url, when given, overrides the url built from the database section
  */
 public class ApplicationConfig {
     private String name, databaseUrl, databaseUser, databasePassword;
     private boolean developmentMode;
+    private int batchSize, bulkLoadThreshold, writeBehindDelay;
+    private SqlDatabaseConfig database;
+    private SqlPoolConfig connectionPool, reportPool;
 
     public String getName() {
         return name;
@@ -46,4 +53,52 @@ public class ApplicationConfig {
     public void setDevelopmentMode(boolean developmentMode) {
         this.developmentMode = developmentMode;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBulkLoadThreshold() {
+        return bulkLoadThreshold;
+    }
+
+    public void setBulkLoadThreshold(int bulkLoadThreshold) {
+        this.bulkLoadThreshold = bulkLoadThreshold;
+    }
+
+    public int getWriteBehindDelay() {
+        return writeBehindDelay;
+    }
+
+    public void setWriteBehindDelay(int writeBehindDelay) {
+        this.writeBehindDelay = writeBehindDelay;
+    }
+
+    public SqlDatabaseConfig getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(SqlDatabaseConfig database) {
+        this.database = database;
+    }
+
+    public SqlPoolConfig getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void setConnectionPool(SqlPoolConfig connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public SqlPoolConfig getReportPool() {
+        return reportPool;
+    }
+
+    public void setReportPool(SqlPoolConfig reportPool) {
+        this.reportPool = reportPool;
+    }
 }
@@ -1,11 +1,13 @@
 package excel.accounting.service;
 
 import excel.accounting.db.*;
+import excel.accounting.entity.Status;
 import excel.accounting.shared.AbstractControl;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract Service
@@ -14,6 +16,7 @@ import java.util.List;
  * @since Oct 2016
  */
 public abstract class AbstractService<E> extends AbstractControl {
+    private WriteBehindQueue<E> writeBehindQueue;
 
     protected void executeBatch(List<SqlQuery> queryList) {
         try {
@@ -51,49 +54,212 @@ public abstract class AbstractService<E> extends AbstractControl {
         }
     }
 
-    protected void insert(E object) {
+    protected int getBatchSize() {
+        int batchSize = getApplicationControl().getConfig().getBatchSize();
+        return 0 < batchSize ? batchSize : 500;
+    }
+
+    /**
+     * Imports of at least this many rows take the bulk load path
+     */
+    protected int getBulkLoadThreshold() {
+        int threshold = getApplicationControl().getConfig().getBulkLoadThreshold();
+        return 0 < threshold ? threshold : 50000;
+    }
+
+    /**
+     * Milliseconds an inline edit waits in the write behind queue before it is committed
+     */
+    protected int getWriteBehindDelay() {
+        int delay = getApplicationControl().getConfig().getWriteBehindDelay();
+        return 0 < delay ? delay : 1000;
+    }
+
+    private synchronized WriteBehindQueue<E> getWriteBehindQueue() {
+        if (writeBehindQueue == null) {
+            writeBehindQueue = new WriteBehindQueue<>(getClass().getSimpleName(), getSqlTransaction(),
+                    getWriteBehindDelay(), getBatchSize(), ex -> getSqlAsyncReader().getCallbackExecutor()
+                    .execute(() -> showMessage("Error : edits are not saved, " + ex.getMessage())));
+        }
+        return writeBehindQueue;
+    }
+
+    /**
+     * Queue an inline edited row, for table row handlers, edits are committed in batches off the fx thread
+     */
+    public void updateLater(E object) {
+        getWriteBehindQueue().add(object);
+    }
+
+    /**
+     * Commit the queued edits now, views call it before they close
+     *
+     * @return false when the commit failed, the error is shown on the message panel
+     */
+    public boolean flushUpdates() {
+        WriteBehindQueue<E> queue;
+        synchronized (this) {
+            queue = writeBehindQueue;
+        }
+        return queue == null || queue.flush();
+    }
+
+    protected SqlBatchListener createBatchListener() {
+        return new SqlBatchListener() {
+            @Override
+            public void onBatchFailed(int fromIndex, int toIndex, SQLException ex) {
+                showMessage("Error : rows " + (fromIndex + 1) + " to " + toIndex + " are not saved, "
+                        + ex.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Status transition of the listed entities, checked against the required status by the update itself
+     * Only the entities whose rows changed get the changed status, rows that moved on meanwhile are skipped
+     *
+     * @return entities changed
+     */
+    protected <T> List<T> changeStatus(Status requiredStatus, Status changedStatus, List<T> entityList) {
         try {
-            SqlTransaction transaction = getSqlTransaction();
-            SqlQuery query = transaction.insertQuery(object);
-            executeCommit(query);
+            List<T> changedList = getSqlTransaction().updateTransition("status", requiredStatus, changedStatus,
+                    entityList);
+            if (changedList.size() < entityList.size()) {
+                showMessage((entityList.size() - changedList.size()) + " of " + entityList.size()
+                        + " rows are not " + requiredStatus + ", skipped");
+            }
+            return changedList;
         } catch (SQLException ex) {
+            showMessage("Error : " + ex.getMessage());
             ex.printStackTrace();
         }
+        return Collections.emptyList();
     }
 
-    protected void insertList(List<E> insertList) {
+    /**
+     * @return true when no code is used by another table, otherwise the used codes are shown
+     */
+    protected boolean isUnreferenced(Class<?> entityClass, List<String> codeList) {
         try {
-            SqlTransaction transaction = getSqlTransaction();
-            List<SqlQuery> queryList = new ArrayList<>();
-            for (Object object : insertList) {
-                queryList.add(transaction.insertQuery(object));
+            Map<String, List<String>> usedMap = getSqlReader().findUsedReferences(entityClass, codeList);
+            if (usedMap.isEmpty()) {
+                return true;
             }
-            executeCommit(queryList);
+            Map.Entry<String, List<String>> used = usedMap.entrySet().iterator().next();
+            showMessage("Error : " + usedMap.size() + " of " + codeList.size() + " are in use, " + used.getKey()
+                    + " is used by " + String.join(", ", used.getValue()));
         } catch (SQLException ex) {
+            showMessage("Error : " + ex.getMessage());
             ex.printStackTrace();
         }
+        return false;
+    }
+
+    /**
+     * Unit of work of this thread for one service operation, opened with try with resources and committed at the
+     * end of it. While it is open, single row insert, update and delete are tracked by it instead of written,
+     * and findByCode of the daos reads its identity map
+     */
+    protected SqlUnitOfWork openUnitOfWork() throws SQLException {
+        return getSqlProcessor().openUnitOfWork();
+    }
+
+    protected void insert(E object) {
+        SqlUnitOfWork unitOfWork = getSqlProcessor().getUnitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.insert(object);
+            return;
+        }
+        try {
+            getSqlTransaction().insert(Collections.singletonList(object));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    protected SqlBatchResult insertList(List<E> insertList) {
+        try {
+            return getSqlTransaction().insertBulk(insertList, getBatchSize(), createBatchListener());
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    protected void update(E object) {
+        SqlUnitOfWork unitOfWork = getSqlProcessor().getUnitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.update(object);
+            return;
+        }
+        try {
+            getSqlTransaction().update(Collections.singletonList(object));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    protected SqlBatchResult updateList(List<E> updateList) {
+        try {
+            return getSqlTransaction().updateBulk(updateList, getBatchSize(), createBatchListener());
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
     }
 
     protected void delete(E object) {
+        SqlUnitOfWork unitOfWork = getSqlProcessor().getUnitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.delete(object);
+            return;
+        }
         try {
-            SqlTransaction transaction = getSqlTransaction();
-            SqlQuery sqlQuery = transaction.deleteQuery(object);
-            executeCommit(sqlQuery);
+            getSqlTransaction().delete(Collections.singletonList(object));
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
     }
 
-    protected void deleteList(List<E> deleteList) {
+    protected SqlBatchResult deleteList(List<E> deleteList) {
         try {
-            SqlTransaction transaction = getSqlTransaction();
-            List<SqlQuery> queryList = new ArrayList<>();
-            for (Object object : deleteList) {
-                queryList.add(transaction.deleteQuery(object));
-            }
-            executeCommit(queryList);
+            return getSqlTransaction().deleteBulk(deleteList, getBatchSize(), createBatchListener());
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
+        return null;
+    }
+
+    protected SqlBatchResult mergeList(List<E> mergeList) {
+        try {
+            return getSqlTransaction().mergeBulk(mergeList, getBatchSize(), createBatchListener());
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    protected SqlBulkLoadResult bulkLoad(List<E> loadList) {
+        try {
+            SqlBulkLoadResult result = getSqlTransaction().bulkLoad(loadList);
+            showMessage(result.getRowCount() + " rows loaded, " + result.getRowsPerSecond() + " rows/sec");
+            return result;
+        } catch (SQLException ex) {
+            showMessage("Error : " + ex.getMessage());
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Large imports are bulk loaded as a whole, smaller ones are inserted in batches. Call it outside a unit of
+     * work, inside one the bulk load is not available and every batch waits for the commit of the unit of work
+     */
+    protected boolean importList(List<E> importList) {
+        if (getBulkLoadThreshold() <= importList.size() && getSqlProcessor().getUnitOfWork() == null) {
+            return bulkLoad(importList) != null;
+        }
+        SqlBatchResult result = insertList(importList);
+        return result != null && result.isSuccess();
     }
 }
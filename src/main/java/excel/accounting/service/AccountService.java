@@ -2,6 +2,8 @@ package excel.accounting.service;
 
 import excel.accounting.dao.AccountDao;
 import excel.accounting.dao.CurrencyDao;
+import excel.accounting.db.SqlBatchResult;
+import excel.accounting.db.SqlUnitOfWork;
 import excel.accounting.entity.Account;
 import excel.accounting.entity.AccountType;
 import excel.accounting.entity.Currency;
@@ -19,7 +21,7 @@ import java.util.stream.Collectors;
 /**
  * Account Service
  */
-public class AccountService extends AbstractService implements ExcelTypeConverter<Account> {
+public class AccountService extends AbstractService<Account> implements ExcelTypeConverter<Account> {
     private AccountDao accountDao;
     private CurrencyDao currencyDao;
 
@@ -43,16 +45,8 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
         return accountTypeList;
     }
 
-    private void updateStatus(List<Account> accountList) {
-        /*OrmTransaction transaction = createOrmTransaction();
-        try {
-            for (Account account : accountList) {
-                transaction.update(account);
-            }
-            commitBatch(transaction);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }*/
+    private void updateStatus(Status requiredStatus, Status changedStatus, List<Account> accountList) {
+        changeStatus(requiredStatus, changedStatus, accountList);
     }
 
     public void updateCurrency(Currency currency, List<Account> accountList) {
@@ -98,18 +92,9 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
             showMessage("Wrong Status : confirmed accounts are allowed to modify as drafted");
             return;
         }
-        try {
-            for (Account account : filteredList) {
-                Object errorMessage = getSqlReader().getUsedReference(Account.class, account.getCode());
-                if (errorMessage != null) {
-                    showMessage(errorMessage.toString());
-                    return;
-                }
-                account.setStatus(Status.Drafted);
-            }
-            updateStatus(filteredList);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+        List<String> codeList = filteredList.stream().map(Account::getCode).collect(Collectors.toList());
+        if (isUnreferenced(Account.class, codeList)) {
+            updateStatus(Status.Confirmed, Status.Drafted, filteredList);
         }
     }
 
@@ -119,16 +104,12 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
             showMessage("Error : Only drafted accounts are allowed to confirm");
             return;
         }
-        List<Account> validList = new ArrayList<>();
-        filteredList.stream().filter(this::confirmValidate).forEach(account -> {
-            account.setStatus(Status.Confirmed);
-            validList.add(account);
-        });
+        List<Account> validList = filteredList.stream().filter(this::confirmValidate).collect(Collectors.toList());
         if (validList.isEmpty()) {
             showMessage("Error : valid drafted accounts not found");
             return;
         }
-        updateStatus(validList);
+        updateStatus(Status.Drafted, Status.Confirmed, validList);
     }
 
     public void setAsClosed(List<Account> accountList) {
@@ -137,10 +118,7 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
             showMessage("Wrong Status : Only confirmed accounts should be closed");
             return;
         }
-        for (Account account : filteredList) {
-            account.setStatus(Status.Closed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Confirmed, Status.Closed, filteredList);
     }
 
     public void reopenAccount(List<Account> accountList) {
@@ -149,10 +127,7 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
             showMessage("Wrong Status : closed accounts are allowed to reopen");
             return;
         }
-        for (Account account : filteredList) {
-            account.setStatus(Status.Confirmed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Closed, Status.Confirmed, filteredList);
     }
 
     private boolean confirmValidate(Account account) {
@@ -164,6 +139,10 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
         return rules.isValid(account.getCode()) && !StringRules.isEmpty(account.getName());
     }
 
+    /**
+     * Import accounts, new codes are inserted and existing codes updated in one merge pass
+     * Existing accounts keep their stored status, it changes only through the status transitions
+     */
     public void insertAccount(List<Account> accountList) {
         showMessage("Account number, name should not be empty");
         StringRules rules = new StringRules();
@@ -171,10 +150,9 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
         rules.setFirstCharAlphaOnly(true);
         rules.setRulesType(RulesType.Alphanumeric);
         //
-        List<String> existingList = getAccountDao().loadCodeList();
         List<Account> validList = new ArrayList<>();
         for (Account account : accountList) {
-            if (insertValidate(account, rules) && !existingList.contains(account.getCode())) {
+            if (insertValidate(account, rules)) {
                 validList.add(account);
             }
         }
@@ -182,21 +160,36 @@ public class AccountService extends AbstractService implements ExcelTypeConverte
             showMessage("Valid accounts not found");
             return;
         }
-        List<String> currencyList = new ArrayList<>(); //getCurrencyDao().findCodeList();
-        List<AccountType> accountTypeList = getAccountTypeList();
-       /* QueryBuilder queryBuilder = getQueryBuilder("insertAccount");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
+        Set<String> currencySet = new HashSet<>(getCurrencyDao().loadCodeList());
         for (Account account : validList) {
-            if (account.getAccountType() != null && !accountTypeList.contains(account.getAccountType())) {
-                account.setAccountType(null);
-            }
-            if (account.getCurrency() != null && !currencyList.contains(account.getCurrency())) {
+            if (account.getCurrency() != null && !currencySet.contains(account.getCurrency())) {
                 account.setCurrency(null);
             }
-            transaction.addBatch(getColumnsMap("insertAccount", account));
         }
-        executeBatch(transaction);*/
+        try (SqlUnitOfWork unitOfWork = openUnitOfWork()) {
+            keepStoredState(unitOfWork, validList);
+            SqlBatchResult result = mergeList(validList);
+            if (result != null && result.isSuccess()) {
+                unitOfWork.commit();
+            }
+        } catch (SQLException ex) {
+            showMessage("Error : " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Stored status is read in the unit of work of the merge that follows
+     */
+    private void keepStoredState(SqlUnitOfWork unitOfWork, List<Account> accountList) throws SQLException {
+        Set<Object> codeSet = accountList.stream().map(Account::getCode).collect(Collectors.toSet());
+        Map<Object, Account> storedMap = unitOfWork.findAll(Account.class, codeSet);
+        for (Account account : accountList) {
+            Account stored = storedMap.get(account.getCode());
+            if (stored != null) {
+                account.setStatus(stored.getStatus());
+            }
+        }
     }
 
     public void deleteAccount(List<Account> accountList) {
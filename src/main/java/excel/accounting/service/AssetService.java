@@ -16,7 +16,7 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct, 2016
  */
-public class AssetService extends AbstractService implements ExcelTypeConverter<Asset> {
+public class AssetService extends AbstractService<Asset> implements ExcelTypeConverter<Asset> {
     private AssetDao assetDao;
 
     private AssetDao getAssetDao() {
@@ -31,16 +31,7 @@ public class AssetService extends AbstractService implements ExcelTypeConverter<
         if (filteredList.isEmpty()) {
             return;
         }
-        for (Asset asset : filteredList) {
-            asset.setStatus(changedStatus);
-        }
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (Asset asset : filteredList) {
-            transaction.addBatch(getColumnsMap("updateStatus", asset));
-        }
-        executeBatch(transaction);*/
+        changeStatus(requiredStatus, changedStatus, filteredList);
     }
 
     public void setAsDrafted(List<Asset> assetList) {
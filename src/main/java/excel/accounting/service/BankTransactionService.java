@@ -16,7 +16,8 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class BankTransactionService extends AbstractService implements ExcelTypeConverter<BankTransaction> {
+public class BankTransactionService extends AbstractService<BankTransaction>
+        implements ExcelTypeConverter<BankTransaction> {
     private BankTransactionDao bankTransactionDao;
 
     private BankTransactionDao getBankTransactionDao() {
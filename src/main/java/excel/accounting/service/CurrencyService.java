@@ -1,7 +1,5 @@
 package excel.accounting.service;
 
-import excel.accounting.db.QueryBuilder;
-import excel.accounting.db.SqlQuery;
 import excel.accounting.entity.Currency;
 import excel.accounting.entity.Status;
 import excel.accounting.poi.ExcelTypeConverter;
@@ -30,18 +28,8 @@ public class CurrencyService extends AbstractService<Currency> implements ExcelT
         return currencyDao;
     }
 
-    private void updateStatus(List<Currency> currencyList) {
-        try {
-            List<SqlQuery> queryList = new ArrayList<>();
-            for (Currency currency : currencyList) {
-                QueryBuilder tool = getSqlProcessor().createQueryBuilder();
-                tool.update("currency").updateColumns("status", currency.getStatus()).where("code", currency.getCode());
-                queryList.add(tool.getSqlQuery());
-            }
-            executeBatch(queryList);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+    private void updateStatus(Status requiredStatus, Status changedStatus, List<Currency> currencyList) {
+        changeStatus(requiredStatus, changedStatus, currencyList);
     }
 
     public void setAsDrafted(List<Currency> currencyList) {
@@ -50,18 +38,9 @@ public class CurrencyService extends AbstractService<Currency> implements ExcelT
             showMessage("Wrong Status : confirmed currency are allowed to modify as drafted");
             return;
         }
-        try {
-            for (Currency currency : filteredList) {
-                Object errorMessage = getSqlReader().getUsedReference(Currency.class, currency.getCode());
-                if (errorMessage != null) {
-                    showMessage(errorMessage.toString());
-                    return;
-                }
-                currency.setStatus(Status.Drafted);
-            }
-            updateStatus(filteredList);
-        } catch (Exception ex) {
-            ex.printStackTrace();
+        List<String> codeList = filteredList.stream().map(Currency::getCode).collect(Collectors.toList());
+        if (isUnreferenced(Currency.class, codeList)) {
+            updateStatus(Status.Confirmed, Status.Drafted, filteredList);
         }
     }
 
@@ -71,10 +50,7 @@ public class CurrencyService extends AbstractService<Currency> implements ExcelT
             showMessage("Wrong Status : drafted currency are allowed to modify as confirmed");
             return;
         }
-        for (Currency currency : filteredList) {
-            currency.setStatus(Status.Confirmed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Drafted, Status.Confirmed, filteredList);
     }
 
     public void setAsClosed(List<Currency> currencyList) {
@@ -83,10 +59,7 @@ public class CurrencyService extends AbstractService<Currency> implements ExcelT
             showMessage("Wrong Status : confirmed currency are allowed to modify as closed");
             return;
         }
-        for (Currency currency : filteredList) {
-            currency.setStatus(Status.Closed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Confirmed, Status.Closed, filteredList);
     }
 
     public void reopenCurrency(List<Currency> currencyList) {
@@ -95,10 +68,7 @@ public class CurrencyService extends AbstractService<Currency> implements ExcelT
             showMessage("Wrong Status : closed currency are allowed to reopen");
             return;
         }
-        for (Currency currency : filteredList) {
-            currency.setStatus(Status.Confirmed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Closed, Status.Confirmed, filteredList);
     }
 
     private boolean insertValid(Currency currency, StringRules rules) {
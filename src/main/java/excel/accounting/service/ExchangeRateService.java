@@ -18,7 +18,7 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class ExchangeRateService extends AbstractService implements ExcelTypeConverter<ExchangeRate> {
+public class ExchangeRateService extends AbstractService<ExchangeRate> implements ExcelTypeConverter<ExchangeRate> {
     private ExchangeRateDao exchangeRateDao;
     private CurrencyDao currencyDao;
 
@@ -46,14 +46,8 @@ public class ExchangeRateService extends AbstractService implements ExcelTypeCon
                 exchangeRate.getBuyingRate() == null || exchangeRate.getFetchFrom() == null);
     }
 
-    private void updateStatus(List<ExchangeRate> dataList) {
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (ExchangeRate item : dataList) {
-            transaction.addBatch(getColumnsMap("updateStatus", item));
-        }
-        executeBatch(transaction);*/
+    private void updateStatus(Status requiredStatus, Status changedStatus, List<ExchangeRate> dataList) {
+        changeStatus(requiredStatus, changedStatus, dataList);
     }
 
     public void setAsDrafted(List<ExchangeRate> dataList) {
@@ -62,15 +56,10 @@ public class ExchangeRateService extends AbstractService implements ExcelTypeCon
             showMessage("Only confirmed exchange rate set as drafted");
             return;
         }
-       /* for (ExchangeRate exchangeRate : filteredList) {
-            Object usedReference = getExchangeRateDao().getUsedReference(exchangeRate);
-            if (usedReference != null) {
-                showMessage(usedReference.toString());
-                return;
-            }
-            exchangeRate.setStatus(Status.Drafted);
-        }*/
-        updateStatus(filteredList);
+        List<String> codeList = filteredList.stream().map(ExchangeRate::getCode).collect(Collectors.toList());
+        if (isUnreferenced(ExchangeRate.class, codeList)) {
+            updateStatus(Status.Confirmed, Status.Drafted, filteredList);
+        }
     }
 
     public void setAsConfirmed(List<ExchangeRate> dataList) {
@@ -79,16 +68,13 @@ public class ExchangeRateService extends AbstractService implements ExcelTypeCon
             showMessage("Error : Only drafted exchange rate allowed to confirm");
             return;
         }
-        List<ExchangeRate> validList = new ArrayList<>();
-        filteredList.stream().filter(this::confirmValidate).forEach(exchangeRate -> {
-            exchangeRate.setStatus(Status.Confirmed);
-            validList.add(exchangeRate);
-        });
+        List<ExchangeRate> validList = filteredList.stream().filter(this::confirmValidate)
+                .collect(Collectors.toList());
         if (validList.isEmpty()) {
             showMessage("Error : valid exchange rate not found");
             return;
         }
-        updateStatus(validList);
+        updateStatus(Status.Drafted, Status.Confirmed, validList);
     }
 
     public boolean insertExchangeRate(List<ExchangeRate> dataList) {
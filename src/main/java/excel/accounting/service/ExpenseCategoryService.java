@@ -18,7 +18,8 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class ExpenseCategoryService extends AbstractService implements ExcelTypeConverter<ExpenseCategory> {
+public class ExpenseCategoryService extends AbstractService<ExpenseCategory>
+        implements ExcelTypeConverter<ExpenseCategory> {
     private ExpenseCategoryDao expenseCategoryDao;
 
     private ExpenseCategoryDao getExpenseCategoryDao() {
@@ -36,14 +37,8 @@ public class ExpenseCategoryService extends AbstractService implements ExcelType
         return rules.isValid(expenseCategory.getCode()) && !StringRules.isEmpty(expenseCategory.getName());
     }
 
-    private void updateStatus(List<ExpenseCategory> dataList) {
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (ExpenseCategory category : dataList) {
-            transaction.addBatch(getColumnsMap("updateStatus", category));
-        }
-        executeBatch(transaction);*/
+    private void updateStatus(Status requiredStatus, Status changedStatus, List<ExpenseCategory> dataList) {
+        changeStatus(requiredStatus, changedStatus, dataList);
     }
 
     public void setAsDrafted(List<ExpenseCategory> dataList) {
@@ -52,15 +47,10 @@ public class ExpenseCategoryService extends AbstractService implements ExcelType
             showMessage("Wrong Status : Only confirmed expense category set as drafted");
             return;
         }
-       /* for (ExpenseCategory data : filteredList) {
-            Object usedReference = getExpenseCategoryDao().getUsedReference(data);
-            if (usedReference != null) {
-                showMessage(usedReference.toString());
-                return;
-            }
-            data.setStatus(Status.Drafted);
-        }*/
-        updateStatus(filteredList);
+        List<String> codeList = filteredList.stream().map(ExpenseCategory::getCode).collect(Collectors.toList());
+        if (isUnreferenced(ExpenseCategory.class, codeList)) {
+            updateStatus(Status.Confirmed, Status.Drafted, filteredList);
+        }
     }
 
     public void setAsConfirmed(List<ExpenseCategory> dataList) {
@@ -69,16 +59,13 @@ public class ExpenseCategoryService extends AbstractService implements ExcelType
             showMessage("Error : Only drafted expense category are allowed to confirm");
             return;
         }
-        List<ExpenseCategory> validList = new ArrayList<>();
-        filteredList.stream().filter(this::confirmValidate).forEach(account -> {
-            account.setStatus(Status.Confirmed);
-            validList.add(account);
-        });
+        List<ExpenseCategory> validList = filteredList.stream().filter(this::confirmValidate)
+                .collect(Collectors.toList());
         if (validList.isEmpty()) {
             showMessage("Error : valid drafted expense category not found");
             return;
         }
-        updateStatus(validList);
+        updateStatus(Status.Drafted, Status.Confirmed, validList);
     }
 
     public void setAsClosed(List<ExpenseCategory> dataList) {
@@ -87,10 +74,7 @@ public class ExpenseCategoryService extends AbstractService implements ExcelType
             showMessage("Error : Only confirmed expense category should be closed");
             return;
         }
-        for (ExpenseCategory expenseCategory : filteredList) {
-            expenseCategory.setStatus(Status.Closed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Confirmed, Status.Closed, filteredList);
     }
 
     public void reopenExpenseCategory(List<ExpenseCategory> dataList) {
@@ -99,10 +83,7 @@ public class ExpenseCategoryService extends AbstractService implements ExcelType
             showMessage("Wrong Status : closed expense category are allowed to reopen");
             return;
         }
-        for (ExpenseCategory expenseCategory : filteredList) {
-            expenseCategory.setStatus(Status.Confirmed);
-        }
-        updateStatus(filteredList);
+        updateStatus(Status.Closed, Status.Confirmed, filteredList);
     }
 
     public void insertExpenseCategory(List<ExpenseCategory> dataList) {
@@ -1,16 +1,17 @@
 package excel.accounting.service;
 
-import excel.accounting.dao.AccountDao;
-import excel.accounting.dao.CurrencyDao;
 import excel.accounting.dao.ExpenseCategoryDao;
 import excel.accounting.entity.*;
 import excel.accounting.poi.ExcelTypeConverter;
 import excel.accounting.dao.ExpenseItemDao;
+import excel.accounting.db.SqlUnitOfWork;
 import excel.accounting.shared.*;
 import org.apache.poi.ss.usermodel.Cell;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -19,19 +20,10 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class ExpenseItemService extends AbstractService implements ExcelTypeConverter<ExpenseItem> {
-    private CurrencyDao currencyDao;
+public class ExpenseItemService extends AbstractService<ExpenseItem> implements ExcelTypeConverter<ExpenseItem> {
     private ExpenseItemDao expenseItemDao;
-    private AccountDao accountDao;
     private ExpenseCategoryDao expenseCategoryDao;
 
-    private AccountDao getAccountDao() {
-        if (accountDao == null) {
-            accountDao = (AccountDao) getBean("accountDao");
-        }
-        return accountDao;
-    }
-
     private ExpenseCategoryDao getExpenseCategoryDao() {
         if (expenseCategoryDao == null) {
             expenseCategoryDao = (ExpenseCategoryDao) getBean("expenseCategoryDao");
@@ -39,13 +31,6 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
         return expenseCategoryDao;
     }
 
-    private CurrencyDao getCurrencyDao() {
-        if (currencyDao == null) {
-            currencyDao = (CurrencyDao) getBean("currencyDao");
-        }
-        return currencyDao;
-    }
-
     private ExpenseItemDao getExpenseItemDao() {
         if (expenseItemDao == null) {
             expenseItemDao = (ExpenseItemDao) getBean("expenseItemDao");
@@ -53,14 +38,8 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
         return expenseItemDao;
     }
 
-    private void updateStatus(List<ExpenseItem> itemList) {
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (ExpenseItem item : itemList) {
-            transaction.addBatch(getColumnsMap("updateStatus", item));
-        }
-        executeBatch(transaction);*/
+    private void updateStatus(Status requiredStatus, Status changedStatus, List<ExpenseItem> itemList) {
+        changeStatus(requiredStatus, changedStatus, itemList);
     }
 
     public void setAsDrafted(List<ExpenseItem> dataList) {
@@ -69,15 +48,10 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
             showMessage("Wrong Status : Confirmed expense items are allowed to modify as drafted");
             return;
         }
-       /* for (ExpenseItem expenseItem : filteredList) {
-            Object reference = getExpenseItemDao().getUsedReference(expenseItem);
-            if(reference != null) {
-                showMessage(reference.toString());
-                return;
-            }
-            expenseItem.setStatus(Status.Drafted);
-        }*/
-        updateStatus(filteredList);
+        List<String> codeList = filteredList.stream().map(ExpenseItem::getCode).collect(Collectors.toList());
+        if (isUnreferenced(ExpenseItem.class, codeList)) {
+            updateStatus(Status.Confirmed, Status.Drafted, filteredList);
+        }
     }
 
     private boolean confirmValidate(ExpenseItem expenseItem) {
@@ -91,16 +65,13 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
             showMessage("Error : Only drafted expenses are allowed to confirm");
             return;
         }
-        List<ExpenseItem> validList = new ArrayList<>();
-        filteredList.stream().filter(this::confirmValidate).forEach(expenseItem -> {
-            expenseItem.setStatus(Status.Confirmed);
-            validList.add(expenseItem);
-        });
+        List<ExpenseItem> validList = filteredList.stream().filter(this::confirmValidate)
+                .collect(Collectors.toList());
         if (validList.isEmpty()) {
             showMessage("Error : valid drafted expenses not found");
             return;
         }
-        updateStatus(validList);
+        updateStatus(Status.Drafted, Status.Confirmed, validList);
     }
 
     private boolean insertValidate(ExpenseItem item) {
@@ -108,9 +79,12 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
                 !DataValidator.isMoreThenZero(item.getAmount()));
     }
 
+    /**
+     * Sequence and reference lookups read one snapshot in a unit of work, the import runs after it is closed so
+     * large imports take the bulk load path and smaller ones commit batch by batch
+     */
     public boolean insertExpenseItem(List<ExpenseItem> itemList) {
         showMessage("");
-        int sequence = getExpenseItemDao().findLastSequence();
         List<ExpenseItem> validList = new ArrayList<>();
         for (ExpenseItem expenseItem : itemList) {
             if (insertValidate(expenseItem)) {
@@ -121,34 +95,36 @@ public class ExpenseItemService extends AbstractService implements ExcelTypeConv
             showMessage("Valid accounts not found");
             return false;
         }
-        List<String> currencyList = new ArrayList<>(); // getCurrencyDao().findCodeList()
-        List<String> accountList = getAccountDao().loadCodeList();
-        //
-        /*QueryBuilder queryBuilder = getQueryBuilder("insertExpenseItem");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
+        int sequence;
+        Set<Object> currencySet, accountSet;
+        try (SqlUnitOfWork unitOfWork = openUnitOfWork()) {
+            sequence = getExpenseItemDao().findLastSequence();
+            currencySet = unitOfWork.findAll(Currency.class, validList.stream()
+                    .map(ExpenseItem::getCurrency).collect(Collectors.toSet())).keySet();
+            accountSet = unitOfWork.findAll(Account.class, validList.stream()
+                    .map(ExpenseItem::getAccount).collect(Collectors.toSet())).keySet();
+        } catch (SQLException ex) {
+            showMessage("Error : " + ex.getMessage());
+            ex.printStackTrace();
+            return false;
+        }
         StringRules rules = new StringRules();
         rules.setFirstCharAlphaOnly(true);
         rules.setMinMaxLength(2, 6);
         rules.setRulesType(RulesType.Alphanumeric);
         for (ExpenseItem expenseItem : validList) {
-            if(!rules.isValid(expenseItem.getCode())) {
+            if (!rules.isValid(expenseItem.getCode())) {
                 sequence += 1;
                 expenseItem.setCode(EntitySequence.getExpenseItemCode(sequence));
             }
-            if (expenseItem.getCurrency() != null && !currencyList.contains(expenseItem.getCurrency())) {
+            if (expenseItem.getCurrency() != null && !currencySet.contains(expenseItem.getCurrency())) {
                 expenseItem.setCurrency(null);
             }
-            if (expenseItem.getAccount() != null && !accountList.contains(expenseItem.getAccount())) {
+            if (expenseItem.getAccount() != null && !accountSet.contains(expenseItem.getAccount())) {
                 expenseItem.setAccount(null);
             }
-            if (expenseItem.getExpenseCategory() != null) {
-                expenseItem.setCurrency(null);
-            }
-            transaction.addBatch(getColumnsMap("insertExpenseItem", expenseItem));
         }
-        executeBatch(transaction);*/
-        return true;
+        return importList(validList);
     }
 
     public void deleteExpenseItem(List<ExpenseItem> itemList) {
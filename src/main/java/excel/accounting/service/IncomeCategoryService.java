@@ -18,7 +18,8 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class IncomeCategoryService extends AbstractService implements ExcelTypeConverter<IncomeCategory> {
+public class IncomeCategoryService extends AbstractService<IncomeCategory>
+        implements ExcelTypeConverter<IncomeCategory> {
 
     public List<IncomeCategory> searchIncomeCategory(String searchText, Status... statuses) {
        /* ClauseQuery clauseQuery = new ClauseQuery("status");
@@ -40,16 +41,7 @@ public class IncomeCategoryService extends AbstractService implements ExcelTypeC
         if (filteredList.isEmpty()) {
             return;
         }
-        for (IncomeCategory category : filteredList) {
-            category.setStatus(changedStatus);
-        }
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (IncomeCategory category : filteredList) {
-            transaction.addBatch(getColumnsMap("updateStatus", category));
-        }
-        executeBatch(transaction);*/
+        changeStatus(requiredStatus, changedStatus, filteredList);
     }
 
     public void setAsDrafted(List<IncomeCategory> categoryList) {
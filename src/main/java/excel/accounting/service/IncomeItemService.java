@@ -16,7 +16,7 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Oct 2016
  */
-public class IncomeItemService extends AbstractService implements ExcelTypeConverter<IncomeItem> {
+public class IncomeItemService extends AbstractService<IncomeItem> implements ExcelTypeConverter<IncomeItem> {
     private IncomeItemDao incomeItemDao;
 
     private IncomeItemDao getIncomeItemDao() {
@@ -34,16 +34,7 @@ public class IncomeItemService extends AbstractService implements ExcelTypeConve
         if (filteredList.isEmpty()) {
             return;
         }
-        for (IncomeItem item : filteredList) {
-            item.setStatus(changedStatus);
-        }
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (IncomeItem item : filteredList) {
-            transaction.addBatch(getColumnsMap("updateStatus", item));
-        }
-        executeBatch(transaction);*/
+        changeStatus(requiredStatus, changedStatus, filteredList);
     }
 
     public void setAsDrafted(List<IncomeItem> itemList) {
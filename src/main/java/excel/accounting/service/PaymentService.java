@@ -18,7 +18,7 @@ import java.util.stream.Collectors;
  * @author Ramesh
  * @since Nov, 2016
  */
-public class PaymentService extends AbstractService implements ExcelTypeConverter<Payment> {
+public class PaymentService extends AbstractService<Payment> implements ExcelTypeConverter<Payment> {
     private PaymentDao paymentDao;
 
     private PaymentDao getPaymentDao() {
@@ -80,13 +80,7 @@ public class PaymentService extends AbstractService implements ExcelTypeConverte
         if (validList.isEmpty()) {
             return;
         }
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (Payment payment : validList) {
-            transaction.addBatch(getColumnsMap("updateStatus", payment));
-        }
-        executeBatch(transaction);*/
+        updateStatus(Status.Drafted, Status.Confirmed, validList);
     }
 
     public void setAsDrafted(List<Payment> paymentList) {
@@ -102,16 +96,7 @@ public class PaymentService extends AbstractService implements ExcelTypeConverte
         if (filteredList.isEmpty()) {
             return;
         }
-        for (Payment payment : filteredList) {
-            payment.setStatus(changedStatus);
-        }
-        /*QueryBuilder queryBuilder = getQueryBuilder("updateStatus");
-        Transaction transaction = createTransaction();
-        transaction.setBatchQuery(queryBuilder);
-        for (Payment payment : filteredList) {
-            transaction.addBatch(getColumnsMap("updateStatus", payment));
-        }
-        executeBatch(transaction);*/
+        changeStatus(requiredStatus, changedStatus, filteredList);
     }
 
     public void deletePayment(List<Payment> paymentList) {
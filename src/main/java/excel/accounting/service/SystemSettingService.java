@@ -11,7 +11,7 @@ import java.util.List;
  * @author Ramesh
  * @since Nov, 2016
  */
-public class SystemSettingService extends AbstractService {
+public class SystemSettingService extends AbstractService<SystemSetting> {
     private SystemSettingDao currencyDao;
 
     private SystemSettingDao getSystemSettingDao() {
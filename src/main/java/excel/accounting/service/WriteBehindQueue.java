@@ -0,0 +1,112 @@
+package excel.accounting.service;
+
+import excel.accounting.db.SqlRowImage;
+import excel.accounting.db.SqlTransaction;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write Behind Queue
+ * Edited rows are queued once however often they change, and committed as one batched update on a background
+ * thread when the delay after the first queued edit has passed or the queue reaches its size threshold.
+ * The column values are captured when a row is queued, on the editing thread, and the update writes and snapshots
+ * those values, so an edit made while a flush runs is queued again rather than marked clean.
+ * Rows leave the queue only once their commit succeeded, a failed commit is reported to the error listener and
+ * its rows stay queued for the next flush
+ */
+public class WriteBehindQueue<E> {
+    private final SqlTransaction transaction;
+    private final long flushDelay;
+    private final int flushSize;
+    private final Consumer<SQLException> errorListener;
+    private final ScheduledExecutorService executor;
+    private final Object flushLock;
+    private final Map<E, SqlRowImage> pendingMap;
+    private ScheduledFuture<?> scheduledFlush;
+
+    WriteBehindQueue(String name, SqlTransaction transaction, long flushDelay, int flushSize,
+                     Consumer<SQLException> errorListener) {
+        this.transaction = transaction;
+        this.flushDelay = flushDelay;
+        this.flushSize = flushSize;
+        this.errorListener = errorListener;
+        flushLock = new Object();
+        pendingMap = new LinkedHashMap<>();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void add(E row) {
+        pendingMap.put(row, transaction.capture(row));
+        if (flushSize <= pendingMap.size()) {
+            cancelScheduled();
+            executor.execute(this::flush);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(this::flush, flushDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pendingMap.size();
+    }
+
+    /**
+     * Commit the queued rows on the calling thread
+     *
+     * @return false when the commit failed
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            List<SqlRowImage> imageList = pendingImages();
+            if (imageList.isEmpty()) {
+                return true;
+            }
+            try {
+                transaction.updateImages(imageList);
+                removeFlushed(imageList);
+                return true;
+            } catch (SQLException ex) {
+                errorListener.accept(ex);
+                return false;
+            }
+        }
+    }
+
+    public void shutdown() {
+        flush();
+        executor.shutdown();
+    }
+
+    private synchronized List<SqlRowImage> pendingImages() {
+        cancelScheduled();
+        return new ArrayList<>(pendingMap.values());
+    }
+
+    /**
+     * Rows queued again while the flush ran keep their newer image
+     */
+    private synchronized void removeFlushed(List<SqlRowImage> imageList) {
+        for (SqlRowImage image : imageList) {
+            pendingMap.remove(image.getRow(), image);
+        }
+    }
+
+    private void cancelScheduled() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+}
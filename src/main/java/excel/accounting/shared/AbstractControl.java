@@ -36,6 +36,18 @@ public abstract class AbstractControl {
         return control.getSqlProcessor().getSqlReader();
     }
 
+    protected SqlAsyncReader getSqlAsyncReader() {
+        return control.getSqlProcessor().getSqlAsyncReader();
+    }
+
+    protected SqlReader getReportReader() {
+        return control.getSqlProcessor().getReportReader();
+    }
+
+    protected SqlAsyncReader getReportAsyncReader() {
+        return control.getSqlProcessor().getReportAsyncReader();
+    }
+
     protected QueryBuilder createQueryBuilder() {
         return control.getSqlProcessor().createQueryBuilder();
     }
@@ -3,7 +3,9 @@ package excel.accounting.shared;
 import com.google.gson.Gson;
 import excel.accounting.db.*;
 import excel.accounting.model.ApplicationConfig;
+import javafx.application.Platform;
 import javafx.scene.control.TextField;
+import org.apache.log4j.Logger;
 import org.h2.jdbcx.JdbcConnectionPool;
 
 import java.io.FileInputStream;
@@ -17,6 +19,7 @@ import java.util.*;
  * Application Control
  */
 public class ApplicationControl {
+    private static final Logger logger = Logger.getLogger(ApplicationControl.class);
     private static ApplicationControl applicationControl;
     private ApplicationConfig config;
     private SqlProcessor sqlProcessor;
@@ -106,19 +109,39 @@ public class ApplicationControl {
     }
 
     private void startDatabase() throws Exception {
-        sqlProcessor = SqlFactory.createH2Processor(config.getDatabaseUrl(), config.getDatabaseUser(),
-                config.getDatabasePassword(), "excel", getEntityPackages(), new SqlEnumParserImpl());
+        sqlProcessor = SqlFactory.createH2Processor(getDatabaseUrl(), config.getDatabaseUser(),
+                config.getDatabasePassword(), config.getConnectionPool(), config.getReportPool(), "excel",
+                getEntityPackages(), new SqlEnumParserImpl());
+        sqlProcessor.getSqlAsyncReader().setCallbackExecutor(Platform::runLater);
+        sqlProcessor.getReportAsyncReader().setCallbackExecutor(Platform::runLater);
         runForwardTool();
+        if (config.isDevelopmentMode()) {
+            checkQueryPlans();
+        }
+    }
+
+    private String getDatabaseUrl() {
+        if (config.getDatabaseUrl() != null) {
+            return config.getDatabaseUrl();
+        }
+        SqlDatabaseConfig database = config.getDatabase() == null ? new SqlDatabaseConfig() : config.getDatabase();
+        logger.info("Database mode " + database.getMode());
+        return database.getUrl();
+    }
+
+    private void checkQueryPlans() {
+        try {
+            for (String query : sqlProcessor.findTableScans()) {
+                logger.warn("Table scan, index missing : " + query);
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
     }
 
     private void runForwardTool() {
-        List<SqlQuery> queryList = new ArrayList<>();
-        queryList.add(sqlProcessor.createSchemaQuery());
-        queryList.addAll(sqlProcessor.createTableQueries());
-        queryList.addAll(sqlProcessor.alterTableQueries());
         try {
-            SqlTransaction transaction = sqlProcessor.getSqlTransaction();
-            transaction.executeCommit(queryList);
+            sqlProcessor.migrateSchema();
         } catch (SQLException ex) {
             ex.printStackTrace();
         }
@@ -136,7 +159,7 @@ public class ApplicationControl {
     }
 
     public void close() {
-        //   dataProcessor.close();
+        sqlProcessor.close();
     }
 
     public SqlProcessor getSqlProcessor() {
@@ -2,30 +2,23 @@ package excel.accounting.shared;
 
 import excel.accounting.db.SqlEnumParser;
 import excel.accounting.entity.AccountType;
+import excel.accounting.entity.PaidStatus;
 import excel.accounting.entity.Status;
 
 /**
- * Orm Enum Parser Impl
+ * Orm Enum Parser Impl, defaults of unknown stored values
  */
 class SqlEnumParserImpl implements SqlEnumParser {
 
     @Override
     public <E> Object parseEnum(Class<?> typeClass, String value) {
         if (Status.class.equals(typeClass)) {
-            return toEnum(Status.class, value, Status.Drafted);
+            return Status.Drafted;
         } else if (AccountType.class.equals(typeClass)) {
-            return toEnum(AccountType.class, value, AccountType.Expense);
+            return AccountType.Expense;
+        } else if (PaidStatus.class.equals(typeClass)) {
+            return PaidStatus.Unpaid;
         }
         return null;
     }
-
-    @SuppressWarnings("unchecked")
-    private <E extends Enum<E>> E toEnum(Class<E> enumClass, String name, Object defaultValue) {
-        try {
-            return Enum.valueOf(enumClass, name);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-        return (E)defaultValue;
-    }
 }
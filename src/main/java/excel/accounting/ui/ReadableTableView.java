@@ -1,11 +1,15 @@
 package excel.accounting.ui;
 
+import excel.accounting.db.SqlRow;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Callback;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -91,7 +95,7 @@ public class ReadableTableView<T> {
         TableColumn<T, String> column = new TableColumn<>();
         column.setId(name);
         column.setText(title);
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
@@ -101,7 +105,7 @@ public class ReadableTableView<T> {
         column.setId(name);
         column.setText(title);
         column.setStyle("-fx-alignment: center-right;");
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
@@ -110,7 +114,7 @@ public class ReadableTableView<T> {
         TableColumn<T, Integer> column = new TableColumn<>();
         column.setId(name);
         column.setText(title);
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
@@ -119,7 +123,7 @@ public class ReadableTableView<T> {
         TableColumn<T, Date> column = new TableColumn<>();
         column.setId(name);
         column.setText(title);
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
@@ -128,7 +132,7 @@ public class ReadableTableView<T> {
         TableColumn<T, Boolean> column = new TableColumn<>();
         column.setId(name);
         column.setText(title);
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
@@ -137,11 +141,27 @@ public class ReadableTableView<T> {
         TableColumn<T, Enum<?>> column = new TableColumn<>();
         column.setId(name);
         column.setText(title);
-        column.setCellValueFactory(new PropertyValueFactory<>(name));
+        column.setCellValueFactory(createValueFactory(name));
         tableView.getColumns().add(column);
         return column;
     }
 
+    /**
+     * Cell values by property of an entity, or by field name of a projected SqlRow
+     */
+    @SuppressWarnings("unchecked")
+    private <V> Callback<TableColumn.CellDataFeatures<T, V>, ObservableValue<V>> createValueFactory(String name) {
+        final PropertyValueFactory<T, V> propertyFactory = new PropertyValueFactory<>(name);
+        return features -> {
+            if (features.getValue() instanceof SqlRow) {
+                SqlRow row = (SqlRow) features.getValue();
+                int index = row.getProjection().indexOf(name);
+                return new ReadOnlyObjectWrapper<>(index < 0 ? null : (V) row.get(index));
+            }
+            return propertyFactory.call(features);
+        };
+    }
+
     public void setSelectionMode(SelectionMode selectionMode) {
         tableView.getSelectionModel().setSelectionMode(selectionMode);
     }
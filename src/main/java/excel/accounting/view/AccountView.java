@@ -95,11 +95,14 @@ public class AccountView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return accountService == null || accountService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (accountService != null) {
+            accountService.flushUpdates();
+        }
     }
 
     @Override
@@ -154,9 +157,10 @@ public class AccountView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<Account> accountList = accountDao.loadAll(Account.class);
-        ObservableList<Account> observableList = FXCollections.observableArrayList(accountList);
-        tableView.setItems(observableList);
+        accountDao.loadAllAsync(getViewConfig().getName(), Account.class).thenAccept(accountList -> {
+            ObservableList<Account> observableList = FXCollections.observableArrayList(accountList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void updateCurrency() {
@@ -217,7 +221,7 @@ public class AccountView extends AbstractView implements ViewHolder {
             List<Account> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(accountDao.loadAll(Account.class));
+            accountDao.exportAllAsync(Account.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
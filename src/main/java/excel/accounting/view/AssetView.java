@@ -91,11 +91,14 @@ public class AssetView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return assetService == null || assetService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (assetService != null) {
+            assetService.flushUpdates();
+        }
     }
 
     @Override
@@ -135,12 +138,13 @@ public class AssetView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<Asset> assetList = assetDao.loadAll(Asset.class);
-        if (assetList == null || assetList.isEmpty()) {
-            return;
-        }
-        ObservableList<Asset> observableList = FXCollections.observableArrayList(assetList);
-        tableView.setItems(observableList);
+        assetDao.loadAllAsync(getViewConfig().getName(), Asset.class).thenAccept(assetList -> {
+            if (assetList == null || assetList.isEmpty()) {
+                return;
+            }
+            ObservableList<Asset> observableList = FXCollections.observableArrayList(assetList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -185,7 +189,7 @@ public class AssetView extends AbstractView implements ViewHolder {
             List<Asset> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(assetDao.loadAll(Asset.class));
+            assetDao.exportAllAsync(Asset.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
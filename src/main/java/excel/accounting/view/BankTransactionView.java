@@ -88,11 +88,14 @@ public class BankTransactionView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return bankTransactionService == null || bankTransactionService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (bankTransactionService != null) {
+            bankTransactionService.flushUpdates();
+        }
     }
 
     @Override
@@ -132,12 +135,13 @@ public class BankTransactionView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<BankTransaction> bankTransactionList = bankTransactionDao.loadAll(BankTransaction.class);
-        if (bankTransactionList == null || bankTransactionList.isEmpty()) {
-            return;
-        }
-        ObservableList<BankTransaction> observableList = FXCollections.observableArrayList(bankTransactionList);
-        tableView.setItems(observableList);
+        bankTransactionDao.loadAllAsync(getViewConfig().getName(), BankTransaction.class).thenAccept(bankTransactionList -> {
+            if (bankTransactionList == null || bankTransactionList.isEmpty()) {
+                return;
+            }
+            ObservableList<BankTransaction> observableList = FXCollections.observableArrayList(bankTransactionList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -182,7 +186,7 @@ public class BankTransactionView extends AbstractView implements ViewHolder {
             List<BankTransaction> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(bankTransactionDao.loadAll(BankTransaction.class));
+            bankTransactionDao.exportAllAsync(BankTransaction.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
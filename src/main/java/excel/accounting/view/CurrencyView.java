@@ -69,8 +69,7 @@ public class CurrencyView extends AbstractView implements ViewHolder, ListChange
     }
 
     private void loadRecords() {
-        List<Currency> dataList = currencyDao.loadAll(Currency.class);
-        setItems(dataList);
+        currencyDao.loadAllAsync(getViewConfig().getName(), Currency.class).thenAccept(this::setItems);
     }
 
     private HBox createToolbar() {
@@ -92,11 +91,14 @@ public class CurrencyView extends AbstractView implements ViewHolder, ListChange
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return currencyService == null || currencyService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (currencyService != null) {
+            currencyService.flushUpdates();
+        }
     }
 
     @Override
@@ -183,12 +185,14 @@ public class CurrencyView extends AbstractView implements ViewHolder, ListChange
     }
 
     private void exportToExcelEvent(final int actionId) {
-        List<Currency> currencyList;
         if(EXPORT == actionId) {
-            currencyList = currencyDao.loadAll(Currency.class);
+            currencyDao.exportAllAsync(Currency.class).thenAccept(this::writeRecords);
         } else {
-            currencyList = tableView.getSelectedItems();
+            writeRecords(tableView.getSelectedItems());
         }
+    }
+
+    private void writeRecords(List<Currency> currencyList) {
         String fileName = DataConverter.getUniqueFileName("currency", "xls");
         WriteExcelData<Currency> writeExcelData = new WriteExcelData<>(currencyList, currencyService);
         writeExcelData.writeRecords(fileName, getPrimaryStage());
@@ -87,11 +87,14 @@ public class ExchangeRateView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return exchangeRateService == null || exchangeRateService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (exchangeRateService != null) {
+            exchangeRateService.flushUpdates();
+        }
     }
 
     @Override
@@ -135,12 +138,13 @@ public class ExchangeRateView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<ExchangeRate> exchangeRateList = exchangeRateDao.loadAll(ExchangeRate.class);
-        if (exchangeRateList == null || exchangeRateList.isEmpty()) {
-            return;
-        }
-        ObservableList<ExchangeRate> observableList = FXCollections.observableArrayList(exchangeRateList);
-        tableView.setItems(observableList);
+        exchangeRateDao.loadAllAsync(getViewConfig().getName(), ExchangeRate.class).thenAccept(exchangeRateList -> {
+            if (exchangeRateList == null || exchangeRateList.isEmpty()) {
+                return;
+            }
+            ObservableList<ExchangeRate> observableList = FXCollections.observableArrayList(exchangeRateList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcel() {
@@ -170,7 +174,7 @@ public class ExchangeRateView extends AbstractView implements ViewHolder {
             List<ExchangeRate> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(exchangeRateDao.loadAll(ExchangeRate.class));
+            exchangeRateDao.exportAllAsync(ExchangeRate.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
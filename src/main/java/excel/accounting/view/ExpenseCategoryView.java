@@ -87,11 +87,14 @@ public class ExpenseCategoryView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return expenseCategoryService == null || expenseCategoryService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (expenseCategoryService != null) {
+            expenseCategoryService.flushUpdates();
+        }
     }
 
     @Override
@@ -143,12 +146,13 @@ public class ExpenseCategoryView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<ExpenseCategory> categoryList = expenseCategoryDao.loadAll(ExpenseCategory.class);
-        if (categoryList == null || categoryList.isEmpty()) {
-            return;
-        }
-        ObservableList<ExpenseCategory> observableList = FXCollections.observableArrayList(categoryList);
-        tableView.setItems(observableList);
+        expenseCategoryDao.loadAllAsync(getViewConfig().getName(), ExpenseCategory.class).thenAccept(categoryList -> {
+            if (categoryList == null || categoryList.isEmpty()) {
+                return;
+            }
+            ObservableList<ExpenseCategory> observableList = FXCollections.observableArrayList(categoryList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -191,7 +195,7 @@ public class ExpenseCategoryView extends AbstractView implements ViewHolder {
             List<ExpenseCategory> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(expenseCategoryDao.loadAll(ExpenseCategory.class));
+            expenseCategoryDao.exportAllAsync(ExpenseCategory.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
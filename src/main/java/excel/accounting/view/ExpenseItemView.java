@@ -1,6 +1,7 @@
 package excel.accounting.view;
 
 import excel.accounting.dao.ExpenseItemDao;
+import excel.accounting.db.SqlRow;
 import excel.accounting.dialog.AccountDialog;
 import excel.accounting.dialog.CurrencyDialog;
 import excel.accounting.dialog.ExpenseCategoryDialog;
@@ -38,8 +39,10 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
     private final String updateCurrencyActionId = "updateCurrencyAction";
     private final String updateAccountActionId = "updateAccountAction", updatePaymentActionId = "updatePaymentAction";
     private final String updateCategoryActionId = "updateCategoryAction";
+    private final String[] gridFields = {"groupCode", "expenseDate", "expenseCategory", "currency", "account",
+            "status", "paidStatus"};
 
-    private ReadableTableView<ExpenseItem> tableView;
+    private ReadableTableView<SqlRow> tableView;
     private ExpenseItemDao expenseItemDao;
     private ExpenseItemService expenseItemService;
     private VBox basePanel;
@@ -54,7 +57,7 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
         ViewListener viewListener = new ViewListener();
         expenseItemDao = (ExpenseItemDao) getService("expenseItemDao");
         expenseItemService = (ExpenseItemService) getService("expenseItemService");
-        tableView = new ReadableTableView<ExpenseItem>().create();
+        tableView = new ReadableTableView<SqlRow>().create();
         tableView.addTextColumn("code", "Item Code").setPrefWidth(90);
         tableView.addTextColumn("groupCode", "Group Code").setPrefWidth(90);
         tableView.addTextColumn("expenseDate", "Expense Date").setPrefWidth(100);
@@ -102,11 +105,14 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return expenseItemService == null || expenseItemService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (expenseItemService != null) {
+            expenseItemService.flushUpdates();
+        }
     }
 
     @Override
@@ -137,25 +143,33 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
             return;
         }
         if (confirmedActionId.equals(actionId)) {
-            expenseItemService.setAsConfirmed(tableView.getSelectedItems());
+            expenseItemService.setAsConfirmed(getSelectedItems());
         } else if (draftedActionId.equals(actionId)) {
-            expenseItemService.setAsDrafted(tableView.getSelectedItems());
+            expenseItemService.setAsDrafted(getSelectedItems());
         }
         loadRecords();
     }
 
     private void deleteEvent() {
-        expenseItemService.deleteExpenseItem(tableView.getSelectedItems());
+        expenseItemService.deleteExpenseItem(getSelectedItems());
         loadRecords();
     }
 
     private void loadRecords() {
-        List<ExpenseItem> categoryList = expenseItemDao.loadAll(ExpenseItem.class);
-        if (categoryList == null || categoryList.isEmpty()) {
-            return;
-        }
-        ObservableList<ExpenseItem> observableList = FXCollections.observableArrayList(categoryList);
-        tableView.setItems(observableList);
+        expenseItemDao.loadRowsAsync(getViewConfig().getName(), ExpenseItem.class, gridFields).thenAccept(rowList -> {
+            if (rowList == null || rowList.isEmpty()) {
+                return;
+            }
+            ObservableList<SqlRow> observableList = FXCollections.observableArrayList(rowList);
+            tableView.setItems(observableList);
+        });
+    }
+
+    /**
+     * Grid rows hold only the shown columns, selected items are loaded in full to act on them
+     */
+    private List<ExpenseItem> getSelectedItems() {
+        return expenseItemDao.loadEntities(ExpenseItem.class, tableView.getSelectedItems());
     }
 
     private void importFromExcel() {
@@ -180,15 +194,15 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
         }
         WriteExcelData<ExpenseItem> writeExcelData = new WriteExcelData<>(actionId, file, expenseItemService);
         if (exportSelectedActionId.equals(actionId)) {
-            List<ExpenseItem> selected = tableView.getSelectedItems();
+            List<ExpenseItem> selected = getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(expenseItemDao.loadAll(ExpenseItem.class));
+            expenseItemDao.exportAllAsync(ExpenseItem.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
     private void updateCurrency() {
-        List<ExpenseItem> expenseItemList = tableView.getSelectedItems();
+        List<ExpenseItem> expenseItemList = getSelectedItems();
         if (expenseItemList.isEmpty()) {
             return;
         }
@@ -204,7 +218,7 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
     }
 
     private void updateExpenseAccount() {
-        List<ExpenseItem> expenseItemList = tableView.getSelectedItems();
+        List<ExpenseItem> expenseItemList = getSelectedItems();
         if (expenseItemList.isEmpty()) {
             return;
         }
@@ -220,7 +234,7 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
     }
 
     private void updateExpenseCategory() {
-        List<ExpenseItem> expenseItemList = tableView.getSelectedItems();
+        List<ExpenseItem> expenseItemList = getSelectedItems();
         if (expenseItemList.isEmpty()) {
             return;
         }
@@ -236,7 +250,7 @@ public class ExpenseItemView extends AbstractView implements ViewHolder {
     }
 
     private void addPayments() {
-        List<ExpenseItem> expenseItemList = tableView.getSelectedItems();
+        List<ExpenseItem> expenseItemList = getSelectedItems();
         if (expenseItemList.isEmpty()) {
             return;
         }
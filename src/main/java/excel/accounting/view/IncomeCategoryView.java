@@ -84,11 +84,14 @@ public class IncomeCategoryView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return incomeCategoryService == null || incomeCategoryService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (incomeCategoryService != null) {
+            incomeCategoryService.flushUpdates();
+        }
     }
 
     @Override
@@ -128,12 +131,13 @@ public class IncomeCategoryView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<IncomeCategory> categoryList = incomeCategoryDao.loadAll(IncomeCategory.class);
-        if (categoryList == null || categoryList.isEmpty()) {
-            return;
-        }
-        ObservableList<IncomeCategory> observableList = FXCollections.observableArrayList(categoryList);
-        tableView.setItems(observableList);
+        incomeCategoryDao.loadAllAsync(getViewConfig().getName(), IncomeCategory.class).thenAccept(categoryList -> {
+            if (categoryList == null || categoryList.isEmpty()) {
+                return;
+            }
+            ObservableList<IncomeCategory> observableList = FXCollections.observableArrayList(categoryList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -181,7 +185,7 @@ public class IncomeCategoryView extends AbstractView implements ViewHolder {
             List<IncomeCategory> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(incomeCategoryDao.loadAll(IncomeCategory.class));
+            incomeCategoryDao.exportAllAsync(IncomeCategory.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
@@ -84,11 +84,14 @@ public class IncomeItemView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return incomeItemService == null || incomeItemService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (incomeItemService != null) {
+            incomeItemService.flushUpdates();
+        }
     }
 
     @Override
@@ -128,12 +131,13 @@ public class IncomeItemView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<IncomeItem> categoryList = incomeItemDao.loadAll(IncomeItem.class);
-        if (categoryList == null || categoryList.isEmpty()) {
-            return;
-        }
-        ObservableList<IncomeItem> observableList = FXCollections.observableArrayList(categoryList);
-        tableView.setItems(observableList);
+        incomeItemDao.loadAllAsync(getViewConfig().getName(), IncomeItem.class).thenAccept(categoryList -> {
+            if (categoryList == null || categoryList.isEmpty()) {
+                return;
+            }
+            ObservableList<IncomeItem> observableList = FXCollections.observableArrayList(categoryList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -178,7 +182,7 @@ public class IncomeItemView extends AbstractView implements ViewHolder {
             List<IncomeItem> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(incomeItemDao.loadAll(IncomeItem.class));
+            incomeItemDao.exportAllAsync(IncomeItem.class).thenAccept(writeExcelData::writeRowData);
         }
     }
 
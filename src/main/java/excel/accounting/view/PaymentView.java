@@ -85,11 +85,14 @@ public class PaymentView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return paymentService == null || paymentService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (paymentService != null) {
+            paymentService.flushUpdates();
+        }
     }
 
     @Override
@@ -137,12 +140,13 @@ public class PaymentView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<Payment> accountList = paymentDao.loadAll(Payment.class);
-        if (accountList == null || accountList.isEmpty()) {
-            return;
-        }
-        ObservableList<Payment> observableList = FXCollections.observableArrayList(accountList);
-        tableView.setItems(observableList);
+        paymentDao.loadAllAsync(getViewConfig().getName(), Payment.class).thenAccept(accountList -> {
+            if (accountList == null || accountList.isEmpty()) {
+                return;
+            }
+            ObservableList<Payment> observableList = FXCollections.observableArrayList(accountList);
+            tableView.setItems(observableList);
+        });
     }
 
     private void importFromExcelEvent() {
@@ -172,7 +176,7 @@ public class PaymentView extends AbstractView implements ViewHolder {
             List<Payment> selected = tableView.getSelectedItems();
             writeExcelData.writeRowData(selected);
         } else {
-            writeExcelData.writeRowData(paymentDao.loadAll(Payment.class));
+            paymentDao.exportAllAsync(Payment.class).thenAccept(writeExcelData::writeRowData);
         }
 
     }
@@ -113,11 +113,14 @@ public class SystemSettingView extends AbstractView implements ViewHolder {
 
     @Override
     public boolean canCloseView() {
-        return true;
+        return systemSettingService == null || systemSettingService.flushUpdates();
     }
 
     @Override
     public void closeView() {
+        if (systemSettingService != null) {
+            systemSettingService.flushUpdates();
+        }
     }
 
     @Override
@@ -138,12 +141,13 @@ public class SystemSettingView extends AbstractView implements ViewHolder {
     }
 
     private void loadRecords() {
-        List<SystemSetting> settings = systemSettingDao.loadAll(SystemSetting.class);
-        if (settings == null || settings.isEmpty()) {
-            return;
-        }
-        ObservableList<SystemSetting> observableList = FXCollections.observableArrayList(settings);
-        tableView.setItems(observableList);
+        systemSettingDao.loadAllAsync(getViewConfig().getName(), SystemSetting.class).thenAccept(settings -> {
+            if (settings == null || settings.isEmpty()) {
+                return;
+            }
+            ObservableList<SystemSetting> observableList = FXCollections.observableArrayList(settings);
+            tableView.setItems(observableList);
+        });
     }
 
     private void onRowSelectionChanged(boolean isRowSelected) {
@@ -0,0 +1,383 @@
+package excel.accounting.db;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Sql Table Processor, annotation processor that writes the entity metadata SqlFactory would otherwise build
+ * by scanning the class path. Applies the same rules: Column and Id fields first, JoinColumn fields after them,
+ * then the ColumnIndex order of the class hierarchy, and TableIndex naming.
+ * Lives in its own source root and is compiled before the main sources onto the processor path only, it is not
+ * part of the application classes and only depends on javax.lang.model.
+ * Every table class of the entity packages is written, whether compiled in this round or before it, so the catalog
+ * is complete at build time. Only the table classes are referenced by the generated code, fields are resolved by
+ * name at startup
+ */
+@SupportedAnnotationTypes(SqlTableProcessor.tableAnnotation)
+public class SqlTableProcessor extends AbstractProcessor {
+    static final String tableAnnotation = "javax.persistence.Table";
+    static final String catalogClass = "SqlGeneratedCatalog";
+    private static final String columnAnnotation = "javax.persistence.Column";
+    private static final String joinColumnAnnotation = "javax.persistence.JoinColumn";
+    private static final String idAnnotation = "javax.persistence.Id";
+    private static final String generatedValueAnnotation = "javax.persistence.GeneratedValue";
+    private static final String temporalAnnotation = "javax.persistence.Temporal";
+    private static final String columnIndexAnnotation = "excel.accounting.db.ColumnIndex";
+    private static final String tableIndexAnnotation = "excel.accounting.db.TableIndex";
+    private static final String tableIndexesAnnotation = "excel.accounting.db.TableIndexes";
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || annotations.isEmpty()) {
+            return false;
+        }
+        Set<PackageElement> packageSet = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    packageSet.add(processingEnv.getElementUtils().getPackageOf(element));
+                }
+            }
+        }
+        List<TableSpec> tableList = new ArrayList<>();
+        for (TypeElement type : listTableClasses(packageSet)) {
+            tableList.add(new TableSpec(type));
+        }
+        try {
+            for (TableSpec spec : tableList) {
+                spec.createColumns();
+            }
+            for (TableSpec spec : tableList) {
+                spec.createJoinColumns(tableList);
+                spec.sortColumns();
+                spec.createIndexes();
+            }
+            writeCatalog(tableList);
+        } catch (IllegalArgumentException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, ex.getMessage());
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Catalog not written " + ex);
+        }
+        generated = true;
+        return false;
+    }
+
+    /**
+     * Table classes of the packages, the ones compiled earlier included, so an incremental compile of a few
+     * entities still writes the complete catalog
+     */
+    private Collection<TypeElement> listTableClasses(Set<PackageElement> packageSet) {
+        Map<String, TypeElement> typeMap = new TreeMap<>();
+        for (PackageElement packageElement : packageSet) {
+            for (TypeElement type : ElementFilter.typesIn(packageElement.getEnclosedElements())) {
+                if (type.getKind() == ElementKind.CLASS && findAnnotation(type, tableAnnotation) != null) {
+                    typeMap.put(type.getQualifiedName().toString(), type);
+                }
+            }
+        }
+        return typeMap.values();
+    }
+
+    private void writeCatalog(List<TableSpec> tableList) throws IOException {
+        final String packageName = getClass().getPackage().getName();
+        Set<String> packageSet = new TreeSet<>();
+        for (TableSpec spec : tableList) {
+            packageSet.add(processingEnv.getElementUtils().getPackageOf(spec.type).getQualifiedName().toString());
+        }
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + catalogClass,
+                tableList.stream().map(spec -> spec.type).toArray(Element[]::new));
+        try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+            writer.println("package " + packageName + ";");
+            writer.println();
+            writer.println("/**");
+            writer.println(" * Sql Generated Catalog, written by " + getClass().getSimpleName() + ", do not edit");
+            writer.println(" */");
+            writer.println("final class " + catalogClass + " implements SqlCatalog {");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public String[] getPackages() {");
+            writer.println("        return new String[]{" + joinQuoted(packageSet) + "};");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public void register(SqlCatalogBuilder builder) {");
+            for (TableSpec spec : tableList) {
+                spec.write(writer);
+            }
+            writer.println("    }");
+            writer.println("}");
+        }
+    }
+
+    private static String joinQuoted(Collection<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (String value : values) {
+            if (builder.length() != 0) {
+                builder.append(", ");
+            }
+            builder.append(quote(value));
+        }
+        return builder.toString();
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (annotationName.equals(((TypeElement) mirror.getAnnotationType().asElement())
+                    .getQualifiedName().toString())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror mirror, String key) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (key.equals(entry.getKey().getSimpleName().toString())) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private List<String> getStrings(AnnotationMirror mirror, String key) {
+        List<String> valueList = new ArrayList<>();
+        Object value = getValue(mirror, key);
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                valueList.add((String) ((AnnotationValue) item).getValue());
+            }
+        }
+        return valueList;
+    }
+
+    private List<AnnotationMirror> getTableIndexes(Element element) {
+        List<AnnotationMirror> indexList = new ArrayList<>();
+        AnnotationMirror index = findAnnotation(element, tableIndexAnnotation);
+        if (index != null) {
+            indexList.add(index);
+        }
+        AnnotationMirror indexes = findAnnotation(element, tableIndexesAnnotation);
+        if (indexes != null) {
+            for (Object item : (List<?>) getValue(indexes, "value")) {
+                indexList.add((AnnotationMirror) ((AnnotationValue) item).getValue());
+            }
+        }
+        return indexList;
+    }
+
+    /**
+     * The class and its super classes up to Object, sub class first
+     */
+    private List<TypeElement> getClassList(TypeElement type) {
+        List<TypeElement> classList = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !Object.class.getName().equals(current.getQualifiedName().toString())) {
+            classList.add(current);
+            TypeMirror superType = current.getSuperclass();
+            current = superType.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superType).asElement() : null;
+        }
+        return classList;
+    }
+
+    private class ColumnSpec {
+        private final String name;
+        private String fieldName, joinTable, temporalType;
+        private int length;
+        private boolean nullable = true, primaryKey, autoIncrement;
+
+        ColumnSpec(String name) {
+            this.name = name;
+        }
+
+        void write(PrintWriter writer) {
+            if (joinTable == null) {
+                writer.println("        builder.column(" + quote(fieldName) + ", " + quote(name) + ", " + length
+                        + ", " + nullable + ", " + primaryKey + ", " + autoIncrement + ", "
+                        + (temporalType == null ? "null" : "javax.persistence.TemporalType." + temporalType) + ");");
+            } else {
+                writer.println("        builder.joinColumn(" + quote(fieldName) + ", " + quote(name) + ", " + nullable
+                        + ", " + quote(joinTable) + ");");
+            }
+        }
+    }
+
+    private class TableSpec {
+        private final TypeElement type;
+        private final String name;
+        private final List<VariableElement> fieldList;
+        private List<ColumnSpec> columnList;
+        private final Map<String, List<ColumnSpec>> indexMap;
+        private final Map<String, Boolean> uniqueMap;
+
+        TableSpec(TypeElement type) {
+            this.type = type;
+            name = (String) getValue(findAnnotation(type, tableAnnotation), "name");
+            fieldList = new ArrayList<>();
+            for (TypeElement cls : getClassList(type)) {
+                fieldList.addAll(ElementFilter.fieldsIn(cls.getEnclosedElements()));
+            }
+            columnList = new ArrayList<>();
+            indexMap = new LinkedHashMap<>();
+            uniqueMap = new HashMap<>();
+        }
+
+        void createColumns() {
+            for (VariableElement field : fieldList) {
+                final String fieldName = field.getSimpleName().toString();
+                AnnotationMirror column = findAnnotation(field, columnAnnotation);
+                ColumnSpec columnSpec = null;
+                if (column != null) {
+                    String columnName = (String) getValue(column, "name");
+                    columnSpec = new ColumnSpec(columnName.isEmpty() ? fieldName : columnName);
+                    columnSpec.fieldName = fieldName;
+                    columnSpec.nullable = (Boolean) getValue(column, "nullable");
+                    columnSpec.length = (Integer) getValue(column, "length");
+                    AnnotationMirror temporal = findAnnotation(field, temporalAnnotation);
+                    if (temporal != null && Date.class.getName().equals(processingEnv.getTypeUtils()
+                            .erasure(field.asType()).toString())) {
+                        columnSpec.temporalType = getValue(temporal, "value").toString();
+                    }
+                }
+                if (findAnnotation(field, idAnnotation) != null) {
+                    if (columnSpec == null) {
+                        columnSpec = new ColumnSpec(fieldName);
+                    }
+                    columnSpec.primaryKey = true;
+                    columnSpec.autoIncrement = findAnnotation(field, generatedValueAnnotation) != null;
+                }
+                if (columnSpec != null) {
+                    columnList.add(columnSpec);
+                }
+            }
+        }
+
+        void createJoinColumns(List<TableSpec> tableList) {
+            for (VariableElement field : fieldList) {
+                AnnotationMirror joinColumn = findAnnotation(field, joinColumnAnnotation);
+                if (joinColumn == null) {
+                    continue;
+                }
+                final String fieldName = field.getSimpleName().toString();
+                final String joinTable = (String) getValue(joinColumn, "table");
+                if (tableList.stream().noneMatch(spec -> spec.name.equals(joinTable))) {
+                    throw new IllegalArgumentException(type + " join column table name missing " + fieldName);
+                }
+                String columnName = (String) getValue(joinColumn, "name");
+                ColumnSpec columnSpec = new ColumnSpec(columnName.isEmpty() ? fieldName : columnName);
+                columnSpec.fieldName = fieldName;
+                columnSpec.nullable = (Boolean) getValue(joinColumn, "nullable");
+                columnSpec.joinTable = joinTable;
+                columnList.add(columnSpec);
+            }
+        }
+
+        void sortColumns() {
+            List<TypeElement> classList = getClassList(type);
+            Collections.reverse(classList);
+            List<ColumnSpec> orderList = new ArrayList<>();
+            for (TypeElement cls : classList) {
+                AnnotationMirror columnIndex = findAnnotation(cls, columnIndexAnnotation);
+                if (columnIndex == null) {
+                    continue;
+                }
+                for (String fieldName : getStrings(columnIndex, "columns")) {
+                    for (ColumnSpec columnSpec : columnList) {
+                        if (fieldName.equals(columnSpec.fieldName)) {
+                            orderList.add(columnSpec);
+                            break;
+                        }
+                    }
+                }
+            }
+            for (ColumnSpec columnSpec : columnList) {
+                if (!orderList.contains(columnSpec)) {
+                    orderList.add(columnSpec);
+                }
+            }
+            columnList = orderList;
+        }
+
+        void createIndexes() {
+            for (TypeElement cls : getClassList(type)) {
+                for (AnnotationMirror tableIndex : getTableIndexes(cls)) {
+                    addIndex(tableIndex, new ArrayList<>());
+                }
+            }
+            for (VariableElement field : fieldList) {
+                for (AnnotationMirror tableIndex : getTableIndexes(field)) {
+                    List<String> indexFields = new ArrayList<>();
+                    indexFields.add(field.getSimpleName().toString());
+                    addIndex(tableIndex, indexFields);
+                }
+            }
+        }
+
+        private void addIndex(AnnotationMirror tableIndex, List<String> indexFields) {
+            indexFields.addAll(getStrings(tableIndex, "columns"));
+            if (indexFields.isEmpty()) {
+                throw new IllegalArgumentException(type + " table index columns missing");
+            }
+            final boolean unique = (Boolean) getValue(tableIndex, "unique");
+            List<ColumnSpec> indexColumns = new ArrayList<>();
+            StringBuilder indexName = new StringBuilder(unique ? "uk_" : "idx_").append(name);
+            for (String fieldName : indexFields) {
+                ColumnSpec columnSpec = findColumn(fieldName);
+                if (columnSpec == null) {
+                    throw new IllegalArgumentException(type + " table index column not found " + fieldName);
+                }
+                indexColumns.add(columnSpec);
+                indexName.append("_").append(columnSpec.name);
+            }
+            indexMap.put(indexName.toString(), indexColumns);
+            uniqueMap.put(indexName.toString(), unique);
+        }
+
+        private ColumnSpec findColumn(String fieldName) {
+            for (ColumnSpec columnSpec : columnList) {
+                if (fieldName.equals(columnSpec.fieldName) || fieldName.equals(columnSpec.name)) {
+                    return columnSpec;
+                }
+            }
+            return null;
+        }
+
+        void write(PrintWriter writer) {
+            writer.println("        builder.table(" + type.getQualifiedName() + ".class, " + quote(name) + ");");
+            for (ColumnSpec columnSpec : columnList) {
+                columnSpec.write(writer);
+            }
+            for (Map.Entry<String, List<ColumnSpec>> entry : indexMap.entrySet()) {
+                StringBuilder builder = new StringBuilder("        builder.index(").append(quote(entry.getKey()))
+                        .append(", ").append(uniqueMap.get(entry.getKey()));
+                for (ColumnSpec columnSpec : entry.getValue()) {
+                    builder.append(", ").append(quote(columnSpec.name));
+                }
+                writer.println(builder.append(");"));
+            }
+        }
+    }
+}